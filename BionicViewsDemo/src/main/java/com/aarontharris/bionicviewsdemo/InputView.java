@@ -9,10 +9,19 @@ import android.widget.LinearLayout;
 
 import com.aarontharris.bionicviews.BLog;
 import com.aarontharris.bionicviews.Bionic;
+import com.aarontharris.bionicviews.Bionic.MetaEvent;
 
 public class InputView extends LinearLayout {
+	/**
+	 * Sent upward on every click, see {@link MasterView}
+	 */
+	public static class ClickEvent extends MetaEvent {
+		public ClickEvent() {
+			super( ClickEvent.class );
+		}
+	}
+
 	private Button mInput = null;
-	private int counter = 0;
 
 	public InputView( Context context ) {
 		super( context );
@@ -40,9 +49,8 @@ public class InputView extends LinearLayout {
 					public void onClick( View v ) {
 						try {
 							BLog.d( "Input: click" );
-							counter++;
-							Bionic.get().putValue( InputView.this, MasterView.testkey1, "input.click " + counter ); // deliberately overwrite, hacky but serves our test
-							Bionic.get().putValue( InputView.this, MasterView.countkey, counter ); // deliberately overwrite, hacky but serves our test
+							Bionic bionic = Bionic.of( InputView.this );
+							bionic.notifyAncestors( InputView.this, bionic.attainMeta( InputView.this ), new ClickEvent() );
 						} catch ( Exception e ) {
 							BLog.e( e );
 						}
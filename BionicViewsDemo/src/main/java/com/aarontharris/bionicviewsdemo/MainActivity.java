@@ -10,13 +10,24 @@ import android.view.Menu;
 import android.view.MenuItem;
 import android.view.View;
 
-public class MainActivity extends AppCompatActivity {
+import com.aarontharris.bionicviews.Bionic;
+
+public class MainActivity extends AppCompatActivity implements Bionic.ScopeOwner {
+	private View rootView = null;
+	private Bionic bionic = null; // this window's own, see Bionic.of(View)
+
+	@Override
+	public Bionic getBionicScope() {
+		return bionic;
+	}
 
 	@Override
 	protected void onCreate( Bundle savedInstanceState ) {
 		super.onCreate( savedInstanceState );
-		View rootView = LayoutInflater.from( this ).inflate( R.layout.activity_main, null, false );
+		bionic = Bionic.createScope( getWindow().getDecorView() ); // before inflating, views look it up as they are built
+		rootView = LayoutInflater.from( this ).inflate( R.layout.activity_main, null, false );
 		setContentView( rootView );
+		bionic.restoreState( rootView, savedInstanceState );
 		Toolbar toolbar = (Toolbar) findViewById( R.id.toolbar );
 		setSupportActionBar( toolbar );
 
@@ -29,6 +40,18 @@ public class MainActivity extends AppCompatActivity {
 		} );
 	}
 
+	@Override
+	protected void onSaveInstanceState( Bundle outState ) {
+		super.onSaveInstanceState( outState );
+		bionic.saveState( rootView, outState );
+	}
+
+	@Override
+	protected void onDestroy() {
+		super.onDestroy();
+		bionic.destroy(); // every meta of this window goes at once
+	}
+
 	@Override
 	public boolean onCreateOptionsMenu( Menu menu ) {
 		// Inflate the menu; this adds items to the action bar if it is present.
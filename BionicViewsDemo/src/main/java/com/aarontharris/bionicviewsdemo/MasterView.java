@@ -10,14 +10,28 @@ import android.widget.TextView;
 
 import com.aarontharris.bionicviews.BLog;
 import com.aarontharris.bionicviews.Bionic;
-import com.aarontharris.bionicviews.Bionic.SimpleKey;
+import com.aarontharris.bionicviews.BionicProvide;
+import com.aarontharris.bionicviews.Bionic.ComputedKey;
+import com.aarontharris.bionicviews.Bionic.IntKey;
+import com.aarontharris.bionicviews.Bionic.Meta;
+import com.aarontharris.bionicviews.Bionic.OnMetaEvent;
 import com.aarontharris.bionicviews.Bionic.StringKey;
 
 public class MasterView extends LinearLayout {
-	public static final StringKey testkey1 = new StringKey();
-	public static final SimpleKey<Integer> countkey = new SimpleKey<>();
+	public static final StringKey testkey1 = new StringKey().saveAs( "master.testkey1" );
+	public static final IntKey countkey = new IntKey().saveAs( "master.countkey" );
+	public static final ComputedKey<String> labelkey = new ComputedKey<String>( testkey1, countkey ) {
+		@Override
+		protected String compute( Meta meta ) {
+			return meta.getValue( testkey1, "" ) + " (" + meta.getInt( countkey, 0 ) + " clicks)";
+		}
+	};
+
+	@BionicProvide( key = "testkey1" )
+	String message = null;
 
-	private int counter = 0;
+	@BionicProvide( key = "countkey" )
+	int counter = 0;
 
 	private Button mInput = null;
 
@@ -46,14 +60,18 @@ public class MasterView extends LinearLayout {
 				mInput.setOnClickListener( new OnClickListener() {
 					@Override
 					public void onClick( View v ) {
-						try {
-							BLog.d( "Master: click" );
-							counter++;
-							Bionic.get().putValue( MasterView.this, testkey1, "master.click " + counter );
-							Bionic.get().putValue( MasterView.this, countkey, counter );
-						} catch ( Exception e ) {
-							BLog.e( e );
-						}
+						BLog.d( "Master: click" );
+						countClick( "master.click " );
+					}
+				} );
+
+				// Clicks from below bubble up to us, we own the keys they change
+				Bionic.of( this ).attainMeta( this ).subscribeDescendantEvent( InputView.ClickEvent.class, new OnMetaEvent<InputView.ClickEvent>() {
+					@Override
+					public boolean handleEvent( Meta metaSend, Meta metaRecv, InputView.ClickEvent event ) {
+						BLog.d( "Master: input click" );
+						countClick( "input.click " );
+						return false;
 					}
 				} );
 
@@ -66,13 +84,23 @@ public class MasterView extends LinearLayout {
 				}
 
 				BLog.d( "Master: init" );
-				Bionic.get().putValue( this, testkey1, "master.init" );
+				Bionic.of( this ).putValue( this, testkey1, "master.init" );
 			}
 		} catch ( Exception e ) {
 			throw new IllegalStateException( e );
 		}
 	}
 
+	private void countClick( String source ) {
+		try {
+			counter = Bionic.of( this ).getInt( this, countkey, 0 ) + 1; // survives rotation, see MainActivity
+			message = source + counter;
+			MasterView_BionicBinder.provide( this ); // generated from the annotations above
+		} catch ( Exception e ) {
+			BLog.e( e );
+		}
+	}
+
 	@Override
 	protected void onLayout( boolean changed, int l, int t, int r, int b ) {
 		super.onLayout( changed, l, t, r, b );
@@ -6,11 +6,7 @@ import android.view.LayoutInflater;
 import android.widget.LinearLayout;
 import android.widget.TextView;
 
-import com.aarontharris.bionicviews.Bionic;
-import com.aarontharris.bionicviews.Bionic.Meta;
-import com.aarontharris.bionicviews.Bionic.KeyChange;
-import com.aarontharris.bionicviews.Bionic.OnKeyChange;
-import com.aarontharris.bionicviews.Bionic.StringKey;
+import com.aarontharris.bionicviews.BionicSubscribe;
 
 public class SlaveView extends LinearLayout {
 	private TextView message;
@@ -37,21 +33,16 @@ public class SlaveView extends LinearLayout {
 			message = (TextView) findViewById( R.id.slaveview_message_textview );
 
 			if ( !isInEditMode() ) {
-
-				Meta meta = Bionic.get().attainMeta( this );
-				meta.subscribeKeyChange( MasterView.testkey1, true, new OnKeyChange<StringKey>() {
-					@Override
-					public boolean handleEvent( Meta metaSend, Meta metaRecv, KeyChange<StringKey> event ) {
-						String s = event.getKey().get( metaSend );
-						message.setText( s );
-						return true;
-					}
-				} );
-
+				SlaveView_BionicBinder.bind( this ); // generated from the annotations below
 			}
 		} catch ( Exception e ) {
 			throw new IllegalStateException( e );
 		}
 	}
 
+	@BionicSubscribe( key = "labelkey", in = MasterView.class, asap = true )
+	void onLabel( String label ) {
+		message.setText( label );
+	}
+
 }
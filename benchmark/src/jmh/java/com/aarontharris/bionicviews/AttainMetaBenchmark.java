@@ -0,0 +1,47 @@
+package com.aarontharris.bionicviews;
+
+import com.aarontharris.bionicviews.Bionic.Meta;
+import com.aarontharris.bionicviews.Bionic.StringKey;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * attainMeta churn, as seen when list items are created and thrown away. Run with -prof gc to see allocations.
+ */
+@State( Scope.Thread )
+public class AttainMetaBenchmark {
+	private static final StringKey key = new StringKey();
+
+	private Bionic bionic;
+	private VirtualTree tree;
+	private VirtualNode existing;
+
+	@Setup
+	public void setup() throws Exception {
+		BenchmarkSupport.quiet();
+		tree = new VirtualTree();
+		bionic = new Bionic( tree );
+		existing = new VirtualNode( tree );
+		bionic.attainNodeMeta( existing );
+	}
+
+	@Benchmark
+	public Meta attainExisting() throws Exception {
+		return bionic.attainNodeMeta( existing );
+	}
+
+	@Benchmark
+	public Meta attainFresh() throws Exception {
+		return bionic.attainNodeMeta( new VirtualNode( tree ) );
+	}
+
+	@Benchmark
+	public Meta attainFreshAndPut() throws Exception {
+		Meta meta = bionic.attainNodeMeta( new VirtualNode( tree ) );
+		meta.putValue( key, "value" );
+		return meta;
+	}
+}
@@ -0,0 +1,42 @@
+package com.aarontharris.bionicviews;
+
+import android.util.Log;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Cost of logging from the dispatch path.<br>
+ * quiet: the level filters everything out. sampled: errors from one call site are rate limited. unsampled: every error is formatted.<br>
+ */
+@State( Scope.Thread )
+public class BLogBenchmark {
+	@Param( { "quiet", "sampled", "unsampled" } )
+	public String mode;
+
+	private final Exception exception = new IllegalStateException( "benchmark" );
+	private int counter = 0;
+
+	@Setup
+	public void setup() {
+		BenchmarkSupport.quiet();
+		BionicConfig.setDebug( true );
+		BionicConfig.setLogLevel( "quiet".equals( mode ) ? Log.ASSERT + 1 : Log.VERBOSE );
+		BionicConfig.setErrorSampleWindowMillis( "unsampled".equals( mode ) ? 0 : 60000 );
+	}
+
+	@Benchmark
+	public int debug() {
+		BLog.d( "value %d", ++counter );
+		return BenchmarkSupport.printed;
+	}
+
+	@Benchmark
+	public int error() {
+		BLog.e( exception );
+		return BenchmarkSupport.printed;
+	}
+}
@@ -0,0 +1,20 @@
+package com.aarontharris.bionicviews;
+
+final class BenchmarkSupport {
+	static int printed = 0;
+
+	/**
+	 * android.util.Log is only a stub on the host, count lines instead of printing them
+	 */
+	static void quiet() {
+		BLog.setPrinter( new BLog.Printer() {
+			@Override
+			public void println( int level, String tag, String message ) {
+				printed++;
+			}
+		} );
+	}
+
+	private BenchmarkSupport() {
+	}
+}
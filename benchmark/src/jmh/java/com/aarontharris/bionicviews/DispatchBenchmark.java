@@ -0,0 +1,99 @@
+package com.aarontharris.bionicviews;
+
+import com.aarontharris.bionicviews.Bionic.IntKey;
+import com.aarontharris.bionicviews.Bionic.KeyChange;
+import com.aarontharris.bionicviews.Bionic.Meta;
+import com.aarontharris.bionicviews.Bionic.OnKeyChange;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+
+/**
+ * putValue and its notifyChildren cascade against fan-out and subscriber density.<br>
+ * The provider sits on the root, every row below it holds a leaf and a fraction of the leaves subscribe.
+ * Subscribers are placed with a fixed seed so every run measures the same tree.<br>
+ */
+@State( Scope.Thread )
+public class DispatchBenchmark {
+	private static final IntKey key1 = new IntKey();
+	private static final IntKey key2 = new IntKey();
+	private static final IntKey key3 = new IntKey();
+	private static final IntKey key4 = new IntKey();
+
+	@Param( { "10", "100", "1000" } )
+	public int fanout;
+
+	@Param( { "0", "0.01", "0.1", "1" } )
+	public double density;
+
+	private Bionic bionic;
+	private Meta rootMeta;
+	private int counter = 0;
+	public int delivered = 0;
+
+	@Setup
+	public void setup() throws Exception {
+		BenchmarkSupport.quiet();
+		VirtualTree tree = new VirtualTree();
+		bionic = new Bionic( tree );
+
+		VirtualNode root = new VirtualNode( tree );
+		rootMeta = bionic.attainNodeMeta( root );
+
+		OnKeyChange<IntKey> handler = new OnKeyChange<IntKey>() {
+			@Override
+			public boolean handleEvent( Meta metaSend, Meta metaRecv, KeyChange<IntKey> event ) {
+				delivered += metaSend.getInt( event.getKey(), 0 );
+				return true;
+			}
+		};
+
+		Random random = new Random( 42 );
+		for ( int i = 0; i < fanout; i++ ) {
+			VirtualNode mid = new VirtualNode( tree );
+			VirtualNode leaf = new VirtualNode( tree );
+			root.addChild( mid );
+			mid.addChild( leaf );
+			if ( random.nextDouble() < density ) {
+				Meta meta = bionic.attainNodeMeta( leaf );
+				meta.subscribeKeyChange( key1, false, handler );
+				meta.subscribeKeyChange( key2, false, handler );
+				meta.subscribeKeyChange( key3, false, handler );
+				meta.subscribeKeyChange( key4, false, handler );
+			}
+		}
+	}
+
+	@Benchmark
+	public int putValue() throws Exception {
+		rootMeta.putInt( key1, ++counter );
+		return delivered;
+	}
+
+	@Benchmark
+	public int putFourKeys() throws Exception {
+		counter++;
+		rootMeta.putInt( key1, counter );
+		rootMeta.putInt( key2, counter );
+		rootMeta.putInt( key3, counter );
+		rootMeta.putInt( key4, counter );
+		return delivered;
+	}
+
+	@Benchmark
+	public int batchFourKeys() throws Exception {
+		counter++;
+		bionic.beginBatch();
+		rootMeta.putInt( key1, counter );
+		rootMeta.putInt( key2, counter );
+		rootMeta.putInt( key3, counter );
+		rootMeta.putInt( key4, counter );
+		bionic.commitBatch();
+		return delivered;
+	}
+}
@@ -0,0 +1,72 @@
+package com.aarontharris.bionicviews;
+
+import com.aarontharris.bionicviews.Bionic.Meta;
+import com.aarontharris.bionicviews.Bionic.StringKey;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Bionic.getValue against the distance between the reader and the provider.
+ */
+@State( Scope.Thread )
+public class LookupBenchmark {
+	/**
+	 * Claims not to report hierarchy changes, so the engine never caches, as with detached views
+	 */
+	static final class UntrackedTree extends VirtualTree {
+		@Override
+		public boolean isTracked( Object node ) {
+			return false;
+		}
+	}
+
+	private static final StringKey key = new StringKey();
+	private static final StringKey missing = new StringKey(); // never provided
+
+	@Param( { "1", "5", "10", "20", "30" } )
+	public int depth;
+
+	@Param( { "true", "false" } )
+	public boolean tracked; // false measures the uncached walk
+
+	private Bionic bionic;
+	private VirtualNode leaf;
+	private Meta leafMeta;
+
+	@Setup
+	public void setup() throws Exception {
+		BenchmarkSupport.quiet();
+		VirtualTree tree = tracked ? new VirtualTree() : new UntrackedTree();
+		bionic = new Bionic( tree );
+
+		VirtualNode root = new VirtualNode( tree );
+		bionic.putNodeValue( root, key, "value" );
+		VirtualNode ptr = root;
+		for ( int i = 0; i < depth; i++ ) {
+			VirtualNode child = new VirtualNode( tree );
+			ptr.addChild( child );
+			ptr = child;
+		}
+		leaf = ptr;
+		leafMeta = bionic.attainNodeMeta( leaf );
+	}
+
+	@Benchmark
+	public String getValue() {
+		return bionic.getNodeValue( leaf, key, null );
+	}
+
+	@Benchmark
+	public String metaGetValue() {
+		return leafMeta.getValue( key, null );
+	}
+
+	@Benchmark
+	public String metaGetMissing() {
+		return leafMeta.getValue( missing, null );
+	}
+}
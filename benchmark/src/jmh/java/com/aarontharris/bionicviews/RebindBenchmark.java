@@ -0,0 +1,82 @@
+package com.aarontharris.bionicviews;
+
+import com.aarontharris.bionicviews.Bionic.Batch;
+import com.aarontharris.bionicviews.Bionic.IntKey;
+import com.aarontharris.bionicviews.Bionic.KeyChange;
+import com.aarontharris.bionicviews.Bionic.Meta;
+import com.aarontharris.bionicviews.Bionic.OnKeyChange;
+import com.aarontharris.bionicviews.Bionic.StringKey;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * A recycled list item being rebound: reset its meta, put fresh values, deliver them to the item's subscribed children.<br>
+ * Run with -prof gc, the steady state should allocate nothing.
+ */
+@State( Scope.Thread )
+public class RebindBenchmark {
+	private static final StringKey title = new StringKey();
+	private static final IntKey position = new IntKey();
+
+	private Bionic bionic;
+	private Meta itemMeta;
+	private int counter = 0;
+	public int delivered = 0;
+
+	private final Batch bind = new Batch() {
+		@Override
+		public void run() throws Exception {
+			itemMeta.reset();
+			itemMeta.putValue( title, "item" );
+			itemMeta.putInt( position, counter );
+		}
+	};
+
+	@Setup
+	public void setup() throws Exception {
+		BenchmarkSupport.quiet();
+		VirtualTree tree = new VirtualTree();
+		bionic = new Bionic( tree );
+
+		VirtualNode item = new VirtualNode( tree );
+		itemMeta = bionic.attainNodeMeta( item );
+		for ( int i = 0; i < 4; i++ ) {
+			VirtualNode child = new VirtualNode( tree );
+			item.addChild( child );
+			Meta meta = bionic.attainNodeMeta( child );
+			meta.subscribeKeyChange( title, false, new OnKeyChange<StringKey>() {
+				@Override
+				public boolean handleEvent( Meta metaSend, Meta metaRecv, KeyChange<StringKey> event ) {
+					delivered++;
+					return true;
+				}
+			} );
+			meta.subscribeKeyChange( position, false, new OnKeyChange<IntKey>() {
+				@Override
+				public boolean handleEvent( Meta metaSend, Meta metaRecv, KeyChange<IntKey> event ) {
+					delivered += metaSend.getInt( position, 0 );
+					return true;
+				}
+			} );
+		}
+	}
+
+	@Benchmark
+	public int rebind() throws Exception {
+		counter++;
+		itemMeta.reset();
+		itemMeta.putValue( title, "item" );
+		itemMeta.putInt( position, counter );
+		return delivered;
+	}
+
+	@Benchmark
+	public int rebindBatched() throws Exception {
+		counter++;
+		bionic.batch( bind );
+		return delivered;
+	}
+}
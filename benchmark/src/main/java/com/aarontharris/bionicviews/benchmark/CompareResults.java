@@ -0,0 +1,103 @@
+package com.aarontharris.bionicviews.benchmark;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compare two JMH CSV result files benchmark by benchmark, including every parameter combination.<br>
+ * Usage: CompareResults baseline.csv results.csv [tolerance]<br>
+ * Exits with 1 if anything got slower than the tolerance allows (0.10 means 10%).
+ */
+public class CompareResults {
+	public static void main( String[] args ) throws Exception {
+		if ( args.length < 2 ) {
+			System.err.println( "Usage: CompareResults baseline.csv results.csv [tolerance]" );
+			System.exit( 2 );
+		}
+		File baselineFile = new File( args[0] );
+		if ( !baselineFile.exists() ) {
+			System.err.println( "No baseline at " + baselineFile + ", record one with jmhBaseline" );
+			System.exit( 2 );
+		}
+		Map<String, Double> baseline = read( baselineFile );
+		Map<String, Double> results = read( new File( args[1] ) );
+		double tolerance = args.length > 2 ? Double.parseDouble( args[2] ) : 0.10;
+		int regressions = compare( baseline, results, tolerance, System.out );
+		System.exit( regressions == 0 ? 0 : 1 );
+	}
+
+	/**
+	 * Print one line per result and how it moved since the baseline
+	 *
+	 * @return how many results got slower than the tolerance allows
+	 */
+	static int compare( Map<String, Double> baseline, Map<String, Double> results, double tolerance, PrintStream out ) {
+		int regressions = 0;
+		for ( Map.Entry<String, Double> entry : results.entrySet() ) {
+			Double before = baseline.get( entry.getKey() );
+			if ( before == null ) {
+				out.println( String.format( "%-80s %12s -> %12.3f  (new)", entry.getKey(), "", entry.getValue() ) );
+				continue;
+			}
+			double change = ( entry.getValue() - before ) / before; // avgt: higher is slower
+			boolean regressed = change > tolerance;
+			if ( regressed ) {
+				regressions++;
+			}
+			out.println( String.format( "%-80s %12.3f -> %12.3f  %+6.1f%%%s", entry.getKey(), before, entry.getValue(), change * 100, regressed ? "  REGRESSION" : "" ) );
+		}
+		out.println( regressions + " regression(s) beyond " + Math.round( tolerance * 100 ) + "%" );
+		return regressions;
+	}
+
+	/**
+	 * @return score by "benchmark param=value ..." in file order
+	 */
+	static Map<String, Double> read( File file ) throws Exception {
+		Map<String, Double> scores = new LinkedHashMap<>();
+		BufferedReader reader = new BufferedReader( new FileReader( file ) );
+		try {
+			List<String> header = split( reader.readLine() );
+			int scoreIdx = header.indexOf( "Score" );
+			String line;
+			while ( ( line = reader.readLine() ) != null ) {
+				List<String> cells = split( line );
+				StringBuilder name = new StringBuilder( cells.get( 0 ) );
+				for ( int i = 0; i < header.size() && i < cells.size(); i++ ) {
+					if ( header.get( i ).startsWith( "Param: " ) ) {
+						name.append( ' ' ).append( header.get( i ).substring( 7 ) ).append( '=' ).append( cells.get( i ) );
+					}
+				}
+				scores.put( name.toString(), Double.parseDouble( cells.get( scoreIdx ) ) );
+			}
+		} finally {
+			reader.close();
+		}
+		return scores;
+	}
+
+	private static List<String> split( String line ) {
+		List<String> cells = new ArrayList<>();
+		StringBuilder cell = new StringBuilder();
+		boolean quoted = false;
+		for ( int i = 0; i < line.length(); i++ ) {
+			char c = line.charAt( i );
+			if ( c == '"' ) {
+				quoted = !quoted;
+			} else if ( c == ',' && !quoted ) {
+				cells.add( cell.toString() );
+				cell.setLength( 0 );
+			} else {
+				cell.append( c );
+			}
+		}
+		cells.add( cell.toString() );
+		return cells;
+	}
+}
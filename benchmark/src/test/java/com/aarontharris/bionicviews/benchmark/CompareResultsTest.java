@@ -0,0 +1,60 @@
+package com.aarontharris.bionicviews.benchmark;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.PrintStream;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * What jmhCompare reads from JMH's CSV and what it counts as a regression
+ */
+public class CompareResultsTest {
+	private static final String HEADER = "\"Benchmark\",\"Mode\",\"Threads\",\"Samples\",\"Score\",\"Score Error (99.9%)\",\"Unit\",\"Param: depth\",\"Param: shape\"\n";
+
+	private static File csv( String rows ) throws Exception {
+		File file = File.createTempFile( "jmh", ".csv" );
+		file.deleteOnExit();
+		FileWriter writer = new FileWriter( file );
+		try {
+			writer.write( HEADER + rows );
+		} finally {
+			writer.close();
+		}
+		return file;
+	}
+
+	@Test
+	public void everyParameterCombinationIsItsOwnResult() throws Exception {
+		Map<String, Double> scores = CompareResults.read( csv( ""
+				+ "\"LookupBenchmark.lookup\",\"avgt\",1,10,12.5,0.3,\"ns/op\",8,\"wide,deep\"\n"
+				+ "\"LookupBenchmark.lookup\",\"avgt\",1,10,40.25,0.9,\"ns/op\",32,\"wide,deep\"\n" ) );
+		assertEquals( 2, scores.size() );
+		assertEquals( 12.5, scores.get( "LookupBenchmark.lookup depth=8 shape=wide,deep" ), 0 ); // quoted commas stay in the cell
+		assertEquals( 40.25, scores.get( "LookupBenchmark.lookup depth=32 shape=wide,deep" ), 0 );
+	}
+
+	@Test
+	public void onlyResultsSlowerThanTheToleranceRegress() throws Exception {
+		Map<String, Double> baseline = CompareResults.read( csv( ""
+				+ "\"A.a\",\"avgt\",1,10,100,1,\"ns/op\",1,\"x\"\n"
+				+ "\"B.b\",\"avgt\",1,10,100,1,\"ns/op\",1,\"x\"\n"
+				+ "\"C.c\",\"avgt\",1,10,100,1,\"ns/op\",1,\"x\"\n" ) );
+		Map<String, Double> results = CompareResults.read( csv( ""
+				+ "\"A.a\",\"avgt\",1,10,109,1,\"ns/op\",1,\"x\"\n"
+				+ "\"B.b\",\"avgt\",1,10,111,1,\"ns/op\",1,\"x\"\n"
+				+ "\"C.c\",\"avgt\",1,10,50,1,\"ns/op\",1,\"x\"\n"
+				+ "\"D.d\",\"avgt\",1,10,500,1,\"ns/op\",1,\"x\"\n" ) );
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		assertEquals( 1, CompareResults.compare( baseline, results, 0.10, new PrintStream( out, true ) ) );
+		String report = out.toString();
+		assertTrue( report.contains( "REGRESSION" ) );
+		assertEquals( report.indexOf( "REGRESSION" ), report.lastIndexOf( "REGRESSION" ) );
+		assertTrue( report.contains( "(new)" ) ); // no baseline yet, never a regression
+	}
+}
@@ -0,0 +1,422 @@
+package com.aarontharris.bionicviews.processor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.PrimitiveType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+
+/**
+ * Generates a binder class per class using @BionicSubscribe or @BionicProvide, named after it with a _BionicBinder suffix.<br>
+ * Binders reference the keys and the annotated members directly, so there is no reflection at runtime and one class per View
+ * instead of an anonymous handler per subscription.<br>
+ * Annotations are matched by name so this module needs neither the library nor Android on its classpath.<br>
+ */
+public class BionicProcessor extends AbstractProcessor {
+	private static final String SUBSCRIBE = "com.aarontharris.bionicviews.BionicSubscribe";
+	private static final String PROVIDE = "com.aarontharris.bionicviews.BionicProvide";
+	private static final String BIONIC_KEY = "com.aarontharris.bionicviews.Bionic.BionicKey";
+	private static final String VIEW = "android.view.View";
+
+	// primitive key class -> { primitive type, getter, putter, default }
+	private static final Map<String, String[]> PRIMITIVE_KEYS = new LinkedHashMap<>();
+
+	static {
+		PRIMITIVE_KEYS.put( "com.aarontharris.bionicviews.Bionic.IntKey", new String[] { "int", "getInt", "putInt", "0" } );
+		PRIMITIVE_KEYS.put( "com.aarontharris.bionicviews.Bionic.LongKey", new String[] { "long", "getLong", "putLong", "0L" } );
+		PRIMITIVE_KEYS.put( "com.aarontharris.bionicviews.Bionic.FloatKey", new String[] { "float", "getFloat", "putFloat", "0f" } );
+		PRIMITIVE_KEYS.put( "com.aarontharris.bionicviews.Bionic.BooleanKey", new String[] { "boolean", "getBoolean", "putBoolean", "false" } );
+	}
+
+	/**
+	 * An annotated member resolved against its key
+	 */
+	private static final class Binding {
+		private Element member;
+		private String key; // the key field as a source expression
+		private TypeMirror valueType; // the key's T
+		private String[] primitive; // see PRIMITIVE_KEYS, null for object keys
+		private boolean asap;
+	}
+
+	@Override
+	public Set<String> getSupportedAnnotationTypes() {
+		return new HashSet<>( Arrays.asList( SUBSCRIBE, PROVIDE ) );
+	}
+
+	@Override
+	public SourceVersion getSupportedSourceVersion() {
+		return SourceVersion.latestSupported();
+	}
+
+	@Override
+	public boolean process( Set<? extends TypeElement> annotations, RoundEnvironment roundEnv ) {
+		Map<TypeElement, List<Binding>> subscribes = new LinkedHashMap<>();
+		Map<TypeElement, List<Binding>> provides = new LinkedHashMap<>();
+		for ( TypeElement annotation : annotations ) {
+			boolean subscribe = annotation.getQualifiedName().contentEquals( SUBSCRIBE );
+			for ( Element member : roundEnv.getElementsAnnotatedWith( annotation ) ) {
+				Binding binding = resolve( member, annotation );
+				if ( binding == null ) {
+					continue; // already reported
+				}
+				if ( subscribe ? !checkSubscriber( binding ) : !checkProvider( binding ) ) {
+					continue;
+				}
+				TypeElement target = (TypeElement) member.getEnclosingElement();
+				Map<TypeElement, List<Binding>> bindings = subscribe ? subscribes : provides;
+				if ( !bindings.containsKey( target ) ) {
+					bindings.put( target, new ArrayList<Binding>() );
+				}
+				bindings.get( target ).add( binding );
+			}
+		}
+
+		Set<TypeElement> targets = new HashSet<>( subscribes.keySet() );
+		targets.addAll( provides.keySet() );
+		for ( TypeElement target : targets ) {
+			if ( !isSubtype( target.asType(), VIEW ) ) {
+				error( target, "Classes using @BionicSubscribe or @BionicProvide must be Views" );
+				continue;
+			}
+			List<Binding> subscribed = subscribes.get( target );
+			List<Binding> provided = provides.get( target );
+			try {
+				write( target, subscribed == null ? new ArrayList<Binding>() : subscribed, provided == null ? new ArrayList<Binding>() : provided );
+			} catch ( IOException e ) {
+				error( target, "Could not write the binder: " + e.getMessage() );
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Find the key an annotated member refers to
+	 *
+	 * @return null if it cannot be bound, the error is reported
+	 */
+	private Binding resolve( Element member, TypeElement annotation ) {
+		if ( member.getModifiers().contains( Modifier.PRIVATE ) || member.getModifiers().contains( Modifier.STATIC ) ) {
+			error( member, "Bionic annotated members must be neither private nor static" );
+			return null;
+		}
+		AnnotationMirror mirror = null;
+		for ( AnnotationMirror candidate : member.getAnnotationMirrors() ) {
+			if ( candidate.getAnnotationType().asElement().equals( annotation ) ) {
+				mirror = candidate;
+			}
+		}
+
+		String keyName = null;
+		TypeElement keyOwner = (TypeElement) member.getEnclosingElement();
+		Binding binding = new Binding();
+		for ( Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : processingEnv.getElementUtils().getElementValuesWithDefaults( mirror ).entrySet() ) {
+			String name = entry.getKey().getSimpleName().toString();
+			Object value = entry.getValue().getValue();
+			if ( "key".equals( name ) ) {
+				keyName = (String) value;
+			} else if ( "in".equals( name ) && ( (TypeMirror) value ).getKind() == TypeKind.DECLARED ) {
+				keyOwner = (TypeElement) ( (DeclaredType) value ).asElement();
+			} else if ( "asap".equals( name ) ) {
+				binding.asap = (Boolean) value;
+			}
+		}
+
+		VariableElement field = null;
+		for ( VariableElement candidate : ElementFilter.fieldsIn( keyOwner.getEnclosedElements() ) ) {
+			if ( candidate.getSimpleName().contentEquals( keyName ) ) {
+				field = candidate;
+			}
+		}
+		if ( field == null || !field.getModifiers().contains( Modifier.STATIC ) || field.getModifiers().contains( Modifier.PRIVATE ) ) {
+			error( member, "No accessible static key " + keyName + " in " + keyOwner.getQualifiedName() );
+			return null;
+		}
+		TypeMirror keyType = keyTypeArgument( field.asType() );
+		if ( keyType == null ) {
+			error( member, keyOwner.getQualifiedName() + "." + keyName + " is not a BionicKey" );
+			return null;
+		}
+
+		binding.member = member;
+		binding.key = keyOwner.getQualifiedName() + "." + keyName;
+		binding.valueType = keyType;
+		for ( Map.Entry<String, String[]> primitive : PRIMITIVE_KEYS.entrySet() ) {
+			if ( isSubtype( field.asType(), primitive.getKey() ) ) {
+				binding.primitive = primitive.getValue();
+			}
+		}
+		return binding;
+	}
+
+	private boolean checkSubscriber( Binding binding ) {
+		ExecutableElement method = (ExecutableElement) binding.member;
+		TypeKind returns = method.getReturnType().getKind();
+		if ( returns != TypeKind.VOID && returns != TypeKind.BOOLEAN ) {
+			error( method, "@BionicSubscribe methods return void or boolean" );
+			return false;
+		}
+		List<? extends VariableElement> params = method.getParameters();
+		if ( params.size() > 1 ) {
+			error( method, "@BionicSubscribe methods take no parameter or the key's value" );
+			return false;
+		}
+		if ( params.size() == 1 && !acceptsValue( params.get( 0 ).asType(), binding ) ) {
+			error( method, "Parameter does not accept the values of " + binding.key );
+			return false;
+		}
+		return true;
+	}
+
+	private boolean checkProvider( Binding binding ) {
+		TypeMirror type = binding.member.asType();
+		if ( binding.member.getKind() == ElementKind.METHOD ) {
+			ExecutableElement method = (ExecutableElement) binding.member;
+			if ( !method.getParameters().isEmpty() || method.getReturnType().getKind() == TypeKind.VOID ) {
+				error( method, "@BionicProvide methods take no parameter and return the value" );
+				return false;
+			}
+			type = method.getReturnType();
+		}
+		Types types = processingEnv.getTypeUtils();
+		boolean primitive = binding.primitive != null && type.getKind().isPrimitive() && type.toString().equals( binding.primitive[0] );
+		if ( !primitive && !types.isAssignable( box( type ), binding.valueType ) ) {
+			error( binding.member, "Values of type " + type + " cannot be put under " + binding.key );
+			return false;
+		}
+		return true;
+	}
+
+	private boolean acceptsValue( TypeMirror param, Binding binding ) {
+		if ( param.getKind().isPrimitive() ) {
+			return binding.primitive != null && param.toString().equals( binding.primitive[0] );
+		}
+		return processingEnv.getTypeUtils().isAssignable( binding.valueType, param );
+	}
+
+	private void write( TypeElement target, List<Binding> subscribed, List<Binding> provided ) throws IOException {
+		String pkg = processingEnv.getElementUtils().getPackageOf( target ).getQualifiedName().toString();
+		String targetName = target.getQualifiedName().toString();
+		String binderName = ( pkg.isEmpty() ? targetName : targetName.substring( pkg.length() + 1 ) ).replace( '.', '_' ) + "_BionicBinder";
+
+		StringBuilder out = new StringBuilder();
+		if ( !pkg.isEmpty() ) {
+			out.append( "package " ).append( pkg ).append( ";\n\n" );
+		}
+		out.append( "import com.aarontharris.bionicviews.Bionic;\n" );
+		if ( !subscribed.isEmpty() ) {
+			out.append( "import com.aarontharris.bionicviews.Bionic.BionicKey;\n" );
+			out.append( "import com.aarontharris.bionicviews.Bionic.KeyChange;\n" );
+		}
+		out.append( "import com.aarontharris.bionicviews.Bionic.Meta;\n" );
+		if ( !subscribed.isEmpty() ) {
+			out.append( "import com.aarontharris.bionicviews.Bionic.OnKeyChange;\n" );
+		}
+		out.append( "\n" );
+		out.append( "/**\n * Generated by BionicProcessor from the annotations of {@link " ).append( targetName ).append( "}, do not edit.\n */\n" );
+		out.append( "public final class " ).append( binderName );
+		if ( !subscribed.isEmpty() ) {
+			out.append( " implements OnKeyChange<BionicKey<?>>" );
+		}
+		out.append( " {\n" );
+
+		if ( !subscribed.isEmpty() ) {
+			out.append( "\tprivate static final BionicKey<?>[] KEYS = " ).append( keys( subscribed, false ) ).append( ";\n" );
+			out.append( "\tprivate static final BionicKey<?>[] ASAP_KEYS = " ).append( keys( subscribed, true ) ).append( ";\n\n" );
+			out.append( "\tprivate final " ).append( targetName ).append( " target;\n" );
+			out.append( "\tprivate final boolean asap; // subscribed to ASAP_KEYS rather than KEYS\n\n" );
+			out.append( "\tprivate " ).append( binderName ).append( "( " ).append( targetName ).append( " target, boolean asap ) {\n" );
+			out.append( "\t\tthis.target = target;\n" );
+			out.append( "\t\tthis.asap = asap;\n" );
+			out.append( "\t}\n\n" );
+			out.append( "\t/**\n\t * Subscribe the target's @BionicSubscribe methods to their keys\n\t */\n" );
+			out.append( "\tpublic static void bind( " ).append( targetName ).append( " target ) throws Exception {\n" );
+			out.append( "\t\tMeta meta = Bionic.of( target ).attainMeta( target );\n" );
+			out.append( "\t\tmeta.subscribeKeyChanges( KEYS, false, new " ).append( binderName ).append( "( target, false ) );\n" );
+			out.append( "\t\tmeta.subscribeKeyChanges( ASAP_KEYS, true, new " ).append( binderName ).append( "( target, true ) );\n" );
+			out.append( "\t}\n\n" );
+		}
+
+		if ( !provided.isEmpty() ) {
+			out.append( "\t/**\n\t * Put the target's @BionicProvide values on its meta, in one batch\n\t */\n" );
+			out.append( "\tpublic static void provide( " ).append( targetName ).append( " target ) throws Exception {\n" );
+			out.append( "\t\tBionic bionic = Bionic.of( target );\n" );
+			out.append( "\t\tMeta meta = bionic.attainMeta( target );\n" );
+			out.append( "\t\tbionic.beginBatch();\n" );
+			out.append( "\t\ttry {\n" );
+			for ( Binding binding : provided ) {
+				String value = "target." + binding.member.getSimpleName() + ( binding.member.getKind() == ElementKind.METHOD ? "()" : "" );
+				TypeMirror type = binding.member.getKind() == ElementKind.METHOD ? ( (ExecutableElement) binding.member ).getReturnType() : binding.member.asType();
+				if ( binding.primitive != null && type.getKind().isPrimitive() ) {
+					out.append( "\t\t\tmeta." ).append( binding.primitive[2] ).append( "( " ).append( binding.key ).append( ", " ).append( value ).append( " );\n" );
+				} else {
+					out.append( "\t\t\tmeta.putValue( " ).append( binding.key ).append( ", " ).append( value ).append( " );\n" );
+				}
+			}
+			out.append( "\t\t} finally {\n" );
+			out.append( "\t\t\tbionic.commitBatch();\n" );
+			out.append( "\t\t}\n" );
+			out.append( "\t}\n\n" );
+		}
+
+		if ( !subscribed.isEmpty() ) {
+			out.append( "\t@Override\n" );
+			out.append( "\tpublic boolean handleEvent( Meta metaSend, Meta metaRecv, KeyChange<BionicKey<?>> event ) {\n" );
+			out.append( "\t\tBionicKey<?> key = event.getKey();\n" );
+			out.append( "\t\tboolean propagate = true;\n" );
+			// one branch per key however its methods are ordered, each binder only calls the methods subscribed like it
+			Map<String, List<Binding>> byKey = new LinkedHashMap<>();
+			for ( Binding binding : subscribed ) {
+				if ( !byKey.containsKey( binding.key ) ) {
+					byKey.put( binding.key, new ArrayList<Binding>() );
+				}
+				byKey.get( binding.key ).add( binding );
+			}
+			boolean first = true;
+			for ( Map.Entry<String, List<Binding>> entry : byKey.entrySet() ) {
+				out.append( first ? "\t\tif" : "\t\t} else if" ).append( " ( key == " ).append( entry.getKey() ).append( " ) {\n" );
+				first = false;
+				if ( isMixed( entry.getValue() ) ) {
+					out.append( "\t\t\tif ( asap ) {\n" );
+					calls( out, entry.getValue(), true, "\t\t\t\t" );
+					out.append( "\t\t\t} else {\n" );
+					calls( out, entry.getValue(), false, "\t\t\t\t" );
+					out.append( "\t\t\t}\n" );
+				} else {
+					calls( out, entry.getValue(), entry.getValue().get( 0 ).asap, "\t\t\t" );
+				}
+			}
+			out.append( "\t\t}\n" );
+			out.append( "\t\treturn propagate;\n" );
+			out.append( "\t}\n" );
+		} else {
+			out.setLength( out.length() - 1 ); // the blank line after provide()
+		}
+		out.append( "}\n" );
+
+		JavaFileObject file = processingEnv.getFiler().createSourceFile( pkg.isEmpty() ? binderName : pkg + "." + binderName, target );
+		Writer writer = file.openWriter();
+		try {
+			writer.write( out.toString() );
+		} finally {
+			writer.close();
+		}
+	}
+
+	/**
+	 * @return true if some of the bindings of a key are asap and some are not
+	 */
+	private boolean isMixed( List<Binding> bindings ) {
+		for ( Binding binding : bindings ) {
+			if ( binding.asap != bindings.get( 0 ).asap ) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Append the calls of the bindings with the given asap
+	 */
+	private void calls( StringBuilder out, List<Binding> bindings, boolean asap, String indent ) {
+		for ( Binding binding : bindings ) {
+			if ( binding.asap != asap ) {
+				continue;
+			}
+			ExecutableElement method = (ExecutableElement) binding.member;
+			String call = "target." + method.getSimpleName() + ( method.getParameters().isEmpty() ? "()" : "( " + argument( method, binding ) + " )" );
+			if ( method.getReturnType().getKind() == TypeKind.BOOLEAN ) {
+				out.append( indent ).append( "propagate &= " ).append( call ).append( ";\n" );
+			} else {
+				out.append( indent ).append( call ).append( ";\n" );
+			}
+		}
+	}
+
+	/**
+	 * @return the keys of the bindings with the given asap, each once, as an array initializer
+	 */
+	private String keys( List<Binding> bindings, boolean asap ) {
+		List<String> keys = new ArrayList<>();
+		for ( Binding binding : bindings ) {
+			if ( binding.asap == asap && !keys.contains( binding.key ) ) {
+				keys.add( binding.key );
+			}
+		}
+		if ( keys.isEmpty() ) {
+			return "{}";
+		}
+		StringBuilder out = new StringBuilder( "{ " );
+		for ( String key : keys ) {
+			out.append( out.length() == 2 ? "" : ", " ).append( key );
+		}
+		return out.append( " }" ).toString();
+	}
+
+	private String argument( ExecutableElement method, Binding binding ) {
+		TypeMirror param = method.getParameters().get( 0 ).asType();
+		if ( param.getKind().isPrimitive() ) {
+			return binding.key + "." + binding.primitive[1] + "( metaSend, " + binding.primitive[3] + " )";
+		}
+		return binding.key + ".get( metaSend )";
+	}
+
+	/**
+	 * @return the T of the BionicKey&lt;T&gt; the given type extends, null if it is no key
+	 */
+	private TypeMirror keyTypeArgument( TypeMirror type ) {
+		Types types = processingEnv.getTypeUtils();
+		if ( type.getKind() != TypeKind.DECLARED ) {
+			return null;
+		}
+		DeclaredType declared = (DeclaredType) type;
+		if ( ( (TypeElement) declared.asElement() ).getQualifiedName().contentEquals( BIONIC_KEY ) ) {
+			return declared.getTypeArguments().isEmpty() ? null : declared.getTypeArguments().get( 0 );
+		}
+		for ( TypeMirror supertype : types.directSupertypes( type ) ) {
+			TypeMirror found = keyTypeArgument( supertype );
+			if ( found != null ) {
+				return found;
+			}
+		}
+		return null;
+	}
+
+	private boolean isSubtype( TypeMirror type, String className ) {
+		TypeElement element = processingEnv.getElementUtils().getTypeElement( className );
+		Types types = processingEnv.getTypeUtils();
+		return element != null && types.isSubtype( types.erasure( type ), types.erasure( element.asType() ) );
+	}
+
+	private TypeMirror box( TypeMirror type ) {
+		return type.getKind().isPrimitive() ? processingEnv.getTypeUtils().boxedClass( (PrimitiveType) type ).asType() : type;
+	}
+
+	private void error( Element element, String message ) {
+		processingEnv.getMessager().printMessage( Diagnostic.Kind.ERROR, message, element );
+	}
+}
@@ -0,0 +1,147 @@
+package com.aarontharris.bionicviews.processor;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import static org.junit.Assert.*;
+
+/**
+ * Compiles a View against a stand-in of the library with the processor, then drives the generated binder.<br>
+ * The stand-in records subscriptions instead of routing changes, so delivery is played by hand.
+ */
+public class BionicProcessorTest {
+	private static final String VIEW = "package android.view;\n"
+			+ "public class View {\n"
+			+ "}\n";
+
+	private static final String SUBSCRIBE = "package com.aarontharris.bionicviews;\n"
+			+ "public @interface BionicSubscribe {\n"
+			+ "	String key();\n"
+			+ "	Class<?> in() default void.class;\n"
+			+ "	boolean asap() default false;\n"
+			+ "}\n";
+
+	private static final String BIONIC = "package com.aarontharris.bionicviews;\n"
+			+ "import java.util.ArrayList;\n"
+			+ "import java.util.List;\n"
+			+ "public class Bionic {\n"
+			+ "	public static final List<Object[]> subscriptions = new ArrayList<>(); // { keys, asap, handler }\n"
+			+ "	public static Bionic of( Object view ) { return new Bionic(); }\n"
+			+ "	public Meta attainMeta( Object view ) { return new Meta(); }\n"
+			+ "	public static class BionicKey<T> { public T get( Meta meta ) { return null; } }\n"
+			+ "	public static class StringKey extends BionicKey<String> {}\n"
+			+ "	public static class KeyChange<K extends BionicKey<?>> {\n"
+			+ "		private final K key;\n"
+			+ "		public KeyChange( K key ) { this.key = key; }\n"
+			+ "		public K getKey() { return key; }\n"
+			+ "	}\n"
+			+ "	public interface OnKeyChange<K extends BionicKey<?>> { boolean handleEvent( Meta metaSend, Meta metaRecv, KeyChange<K> event ); }\n"
+			+ "	public static class Meta {\n"
+			+ "		public void subscribeKeyChanges( BionicKey<?>[] keys, boolean asap, OnKeyChange<BionicKey<?>> handler ) {\n"
+			+ "			subscriptions.add( new Object[] { keys, asap, handler } );\n"
+			+ "		}\n"
+			+ "	}\n"
+			+ "}\n";
+
+	// title is subscribed asap by one method and not by another, with a different key in between
+	private static final String SAMPLE = "package sample;\n"
+			+ "import com.aarontharris.bionicviews.Bionic.StringKey;\n"
+			+ "import com.aarontharris.bionicviews.BionicSubscribe;\n"
+			+ "import java.util.ArrayList;\n"
+			+ "import java.util.List;\n"
+			+ "public class SampleView extends android.view.View {\n"
+			+ "	public static final StringKey title = new StringKey();\n"
+			+ "	public static final StringKey other = new StringKey();\n"
+			+ "	public final List<String> calls = new ArrayList<>();\n"
+			+ "	@BionicSubscribe( key = \"title\", asap = true ) void early() { calls.add( \"early\" ); }\n"
+			+ "	@BionicSubscribe( key = \"other\" ) void other() { calls.add( \"other\" ); }\n"
+			+ "	@BionicSubscribe( key = \"title\" ) boolean late( String value ) { calls.add( \"late\" ); return true; }\n"
+			+ "}\n";
+
+	@Test
+	@SuppressWarnings( "unchecked" ) // the stand-in's fields, typed in its source above
+	public void eachMethodHearsItsKeyOnceAsSubscribed() throws Exception {
+		File dir = compile( VIEW, SUBSCRIBE, BIONIC, SAMPLE );
+		ClassLoader loader = new URLClassLoader( new URL[] { dir.toURI().toURL() } );
+		Class<?> viewClass = loader.loadClass( "sample.SampleView" );
+		Object view = viewClass.newInstance();
+		loader.loadClass( "sample.SampleView_BionicBinder" ).getMethod( "bind", viewClass ).invoke( null, view );
+
+		List<Object[]> subscriptions = (List<Object[]>) loader.loadClass( "com.aarontharris.bionicviews.Bionic" ).getField( "subscriptions" ).get( null );
+		List<String> calls = (List<String>) viewClass.getField( "calls" ).get( view );
+		Object title = viewClass.getField( "title" ).get( null );
+		Object other = viewClass.getField( "other" ).get( null );
+
+		deliver( loader, subscriptions, title, true ); // an ancestor already provides it, only asap subscriptions fire
+		assertEquals( Arrays.asList( "early" ), calls );
+
+		calls.clear();
+		deliver( loader, subscriptions, title, false ); // a later put reaches every subscription of the key
+		assertEquals( 2, calls.size() );
+		assertTrue( calls.containsAll( Arrays.asList( "early", "late" ) ) );
+
+		calls.clear();
+		deliver( loader, subscriptions, other, false );
+		assertEquals( Arrays.asList( "other" ), calls );
+	}
+
+	// Call every handler subscribed to the key, as the library would
+	private static void deliver( ClassLoader loader, List<Object[]> subscriptions, Object key, boolean asapOnly ) throws Exception {
+		Class<?> meta = loader.loadClass( "com.aarontharris.bionicviews.Bionic$Meta" );
+		Class<?> keyChange = loader.loadClass( "com.aarontharris.bionicviews.Bionic$KeyChange" );
+		Class<?> bionicKey = loader.loadClass( "com.aarontharris.bionicviews.Bionic$BionicKey" );
+		Method handleEvent = loader.loadClass( "com.aarontharris.bionicviews.Bionic$OnKeyChange" ).getMethod( "handleEvent", meta, meta, keyChange );
+		Object change = keyChange.getConstructor( bionicKey ).newInstance( key );
+		for ( Object[] subscription : subscriptions ) {
+			if ( Arrays.asList( (Object[]) subscription[0] ).contains( key ) && ( !asapOnly || (Boolean) subscription[1] ) ) {
+				handleEvent.invoke( subscription[2], null, null, change );
+			}
+		}
+	}
+
+	private static File compile( String... sources ) throws IOException {
+		File dir = Files.createTempDirectory( "bionicprocessor" ).toFile();
+		List<File> files = new ArrayList<>();
+		for ( String source : sources ) {
+			String pkg = source.substring( "package ".length(), source.indexOf( ';' ) );
+			int start = source.indexOf( "class " ) >= 0 ? source.indexOf( "class " ) + 6 : source.indexOf( "@interface " ) + 11;
+			String name = source.substring( start, source.indexOf( ' ', start ) );
+			File file = new File( dir, pkg.replace( '.', '/' ) + "/" + name + ".java" );
+			file.getParentFile().mkdirs();
+			Files.write( file.toPath(), source.getBytes( Charset.forName( "UTF-8" ) ) );
+			files.add( file );
+		}
+
+		JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+		DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+		StandardJavaFileManager fileManager = compiler.getStandardFileManager( diagnostics, null, null );
+		JavaCompiler.CompilationTask task = compiler.getTask( null, fileManager, diagnostics,
+				Arrays.asList( "-d", dir.getPath(), "-s", dir.getPath() ), null, fileManager.getJavaFileObjectsFromFiles( files ) );
+		task.setProcessors( Arrays.asList( new BionicProcessor() ) );
+		boolean compiled = task.call();
+		fileManager.close();
+		StringBuilder errors = new StringBuilder();
+		for ( Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics() ) {
+			errors.append( diagnostic ).append( '\n' );
+		}
+		assertTrue( errors.toString(), compiled );
+		return dir;
+	}
+}
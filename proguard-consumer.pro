@@ -0,0 +1,6 @@
+# Applied to apps that depend on BionicViews.
+# Calls to BLog.d are stripped from minified builds, but arguments with side effects are still evaluated,
+# so pass a format and its arguments rather than concatenating the message at the call site.
+-assumenosideeffects class com.aarontharris.bionicviews.BLog {
+    public static void d(...);
+}
@@ -0,0 +1,47 @@
+package com.aarontharris.bionicviews;
+
+import android.content.Context;
+import android.test.InstrumentationTestCase;
+import android.test.UiThreadTest;
+import android.view.View;
+import android.widget.FrameLayout;
+
+import com.aarontharris.bionicviews.Bionic.StringKey;
+
+/**
+ * Scopes need real Views, so these run on a device
+ */
+public class ScopeTest extends InstrumentationTestCase {
+	private static final StringKey key = new StringKey();
+
+	@UiThreadTest
+	public void testTheGlobalActsOnTheViewsScope() throws Exception {
+		Context context = getInstrumentation().getTargetContext();
+		FrameLayout root = new FrameLayout( context );
+		View child = new View( context );
+		root.addView( child );
+		Bionic scope = Bionic.createScope( root );
+
+		scope.putValue( root, key, "scoped" );
+		assertEquals( "scoped", Bionic.get().getValue( child, key, null ) );
+
+		Bionic.get().putValue( child, key, "legacy" ); // lands in the scope instead of clashing with it
+		assertSame( scope, Bionic.of( child ) );
+		assertEquals( "legacy", scope.getValue( child, key, null ) );
+		assertSame( scope.getMeta( child ), Bionic.get().getMeta( child ) );
+	}
+
+	@UiThreadTest
+	public void testDestroyedScopesFallBackToTheGlobal() throws Exception {
+		Context context = getInstrumentation().getTargetContext();
+		FrameLayout root = new FrameLayout( context );
+		View child = new View( context );
+		root.addView( child );
+		Bionic scope = Bionic.createScope( root );
+		assertSame( scope, Bionic.of( child ) );
+
+		scope.destroy();
+		assertSame( Bionic.get(), Bionic.of( child ) );
+		assertSame( Bionic.get(), Bionic.of( root ) );
+	}
+}
@@ -1,29 +1,68 @@
 package com.aarontharris.bionicviews;
 
+import android.util.Log;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Timer;
+import java.util.TimerTask;
+
+/**
+ * Nothing is formatted and no stack is walked unless the level is enabled, see {@link BionicConfig#setLogLevel(int)}.<br>
+ * Errors may be sampled per call site: the first one in each window is logged, the rest are only counted and
+ * the counts are reported in a summary once the window is over, see {@link BionicConfig#setErrorSampleWindowMillis(long)}.
+ * During a storm only the first few errors of a window pay for the stack walk that finds their site, the rest are dropped before it.<br>
+ * Apps that minify their release builds lose the calls to {@link #d(String, Object...)}, but not arguments with side effects,
+ * so pass the format and its arguments instead of concatenating, see proguard-consumer.pro.<br>
+ */
 public class BLog {
 	public static String TAG = "Bionic";
 	public static final String EMPTY_STRING = "";
 
 	public static final void d( String format, Object... objects ) {
-		if ( BionicConfig.isDebug() ) {
-			aLogD( defaultPrefix() + String.format( format, objects ) + defaultPostfix() );
+		if ( BionicConfig.isDebug() && isLoggable( Log.DEBUG ) ) {
+			aLogD( defaultPrefix() + String.format( format, objects ) + defaultPostfix( getCallingStackElem(), 0 ) );
 		}
 	}
 
 	public static final void w( String format, Object... objects ) {
-		aLogW( String.format( format, objects ) + defaultPostfix() );
+		if ( isLoggable( Log.WARN ) ) {
+			aLogW( String.format( format, objects ) + defaultPostfix( getCallingStackElem(), 0 ) );
+		}
 	}
 
 	public static final void e( String format, Object... objects ) {
-		aLogE( defaultPrefix() + String.format( format, objects ) + defaultPostfix() );
+		if ( isLoggable( Log.ERROR ) && admit() ) {
+			StackTraceElement caller = getCallingStackElem();
+			int suppressed = sample( caller );
+			if ( suppressed >= 0 ) {
+				aLogE( defaultPrefix() + String.format( format, objects ) + defaultPostfix( caller, suppressed ) );
+			}
+		}
 	}
 
 	public static final void e( Exception e ) {
-		aLogE( defaultPrefix() + e.getMessage() + defaultPostfix(), e );
+		if ( isLoggable( Log.ERROR ) && admit() ) {
+			StackTraceElement caller = getCallingStackElem();
+			int suppressed = sample( caller );
+			if ( suppressed >= 0 ) {
+				aLogE( defaultPrefix() + e.getMessage() + defaultPostfix( caller, suppressed ), e );
+			}
+		}
 	}
 
 	public static final void e( Exception e, String format, Object... objects ) {
-		aLogE( defaultPrefix() + String.format( format, objects ) + defaultPostfix(), e );
+		if ( isLoggable( Log.ERROR ) && admit() ) {
+			StackTraceElement caller = getCallingStackElem();
+			int suppressed = sample( caller );
+			if ( suppressed >= 0 ) {
+				aLogE( defaultPrefix() + String.format( format, objects ) + defaultPostfix( caller, suppressed ), e );
+			}
+		}
+	}
+
+	public static final boolean isLoggable( int level ) {
+		return level >= BionicConfig.getLogLevel();
 	}
 
 	private static final String defaultPrefix() {
@@ -31,20 +70,164 @@ public class BLog {
 		return EMPTY_STRING;
 	}
 
-	private static final String defaultPostfix() {
-		return " {" + getCallingClass() + "@" + getCallingClassLineNumber() + "}";
+	private static final String defaultPostfix( StackTraceElement caller, int suppressed ) {
+		String postfix = " {" + getSimpleName( caller ) + "@" + caller.getLineNumber() + "}";
+		if ( suppressed > 0 ) {
+			postfix += " (+" + suppressed + " more from here since last report)";
+		}
+		return postfix;
+	}
+
+	private static final class Site {
+		private long windowStart;
+		private int suppressed;
+	}
+
+	private static final HashMap<StackTraceElement, Site> errorSites = new HashMap<>();
+
+	private static final int WALKS_PER_WINDOW = 32; // errors per window allowed to walk the stack for their site
+	private static long walkWindowStart = 0;
+	private static int walks = 0;
+	private static int unresolved = 0; // dropped by admit() before their site was known
+	private static Timer summaryTimer = null;
+	private static boolean summaryScheduled = false;
+
+	/**
+	 * Global budget checked before the stack walk, so a storm of errors costs a counter bump each
+	 * once the window's budget is spent.
+	 *
+	 * @return false to drop the error, it is still counted in the next summary
+	 */
+	private static final boolean admit() {
+		long window = BionicConfig.getErrorSampleWindowMillis();
+		if ( window <= 0 ) {
+			return true;
+		}
+		long now = System.nanoTime() / 1000000L;
+		synchronized ( errorSites ) {
+			if ( now - walkWindowStart >= window ) {
+				walkWindowStart = now;
+				walks = 0;
+			}
+			if ( walks < WALKS_PER_WINDOW ) {
+				walks++;
+				return true;
+			}
+			unresolved++;
+			scheduleSummary( window );
+			return false;
+		}
+	}
+
+	/**
+	 * Rate limit errors per call site.
+	 *
+	 * @return -1 if this error should be dropped, otherwise how many were dropped since the site last logged
+	 */
+	private static final int sample( StackTraceElement caller ) {
+		long now = System.nanoTime() / 1000000L;
+		long window = BionicConfig.getErrorSampleWindowMillis();
+		synchronized ( errorSites ) {
+			Site site = errorSites.get( caller );
+			if ( site == null ) {
+				site = new Site();
+				site.windowStart = now;
+				errorSites.put( caller, site );
+				return 0;
+			}
+			if ( now - site.windowStart < window ) {
+				site.suppressed++;
+				scheduleSummary( window );
+				return -1;
+			}
+			int suppressed = site.suppressed;
+			site.windowStart = now;
+			site.suppressed = 0;
+			return suppressed;
+		}
+	}
+
+	/**
+	 * Report what was dropped once the window is over, even if nothing is logged after the burst.<br>
+	 * Called holding the errorSites lock.
+	 */
+	private static final void scheduleSummary( long window ) {
+		if ( summaryScheduled ) {
+			return;
+		}
+		if ( summaryTimer == null ) {
+			summaryTimer = new Timer( "BLog", true );
+		}
+		summaryScheduled = true;
+		summaryTimer.schedule( new TimerTask() {
+			@Override
+			public void run() {
+				flushSummary();
+			}
+		}, window );
+	}
+
+	/**
+	 * Log how many errors each site dropped since it last reported, and how many were dropped before their site was known.
+	 */
+	static final void flushSummary() {
+		StringBuilder summary = new StringBuilder();
+		synchronized ( errorSites ) {
+			summaryScheduled = false;
+			for ( Map.Entry<StackTraceElement, Site> entry : errorSites.entrySet() ) {
+				Site site = entry.getValue();
+				if ( site.suppressed > 0 ) {
+					StackTraceElement caller = entry.getKey();
+					summary.append( summary.length() == 0 ? "" : ", " ).append( site.suppressed ).append( " from " );
+					summary.append( getSimpleName( caller ) ).append( "@" ).append( caller.getLineNumber() );
+					site.suppressed = 0;
+				}
+			}
+			if ( unresolved > 0 ) {
+				summary.append( summary.length() == 0 ? "" : ", " ).append( unresolved ).append( " from unresolved sites" );
+				unresolved = 0;
+			}
+		}
+		if ( summary.length() > 0 ) {
+			aLogE( "Errors dropped by sampling: " + summary );
+		}
+	}
+
+	/**
+	 * Where finished log lines end up, see {@link #setPrinter(Printer)}
+	 */
+	public static interface Printer {
+		public void println( int level, String tag, String message );
+	}
+
+	public static final Printer ANDROID_PRINTER = new Printer() {
+		@Override
+		public void println( int level, String tag, String message ) {
+			android.util.Log.println( level, tag, message );
+		}
+	};
+
+	private static Printer printer = ANDROID_PRINTER;
+
+	/**
+	 * Replace android.util.Log, for instance when running on the host JVM where it is only a stub.
+	 *
+	 * @param printer null restores {@link #ANDROID_PRINTER}
+	 */
+	public static final void setPrinter( Printer printer ) {
+		BLog.printer = printer == null ? ANDROID_PRINTER : printer;
 	}
 
 	private static final void aLogD( String message ) {
-		android.util.Log.d( TAG, message );
+		printer.println( Log.DEBUG, TAG, message );
 	}
 
 	private static final void aLogW( String message ) {
-		android.util.Log.w( TAG, message );
+		printer.println( Log.WARN, TAG, message );
 	}
 
 	private static final void aLogE( String message ) {
-		android.util.Log.e( TAG, message );
+		printer.println( Log.ERROR, TAG, message );
 	}
 
 	private static final void aLogE( String message, Exception e ) {
@@ -52,7 +235,7 @@ public class BLog {
 			message = "Message: " + e.getMessage();
 		}
 
-		android.util.Log.e( TAG, message );
+		printer.println( Log.ERROR, TAG, message );
 	}
 
 	private static final StackTraceElement getCallingStackElem() {
@@ -97,12 +280,4 @@ public class BLog {
 		int pos = full.lastIndexOf( '.' );
 		return full.substring( pos + 1 ); // should be safe, can't see a class name ending with a .
 	}
-
-	private static final String getCallingClass() {
-		return getSimpleName( getCallingStackElem() );
-	}
-
-	private static final int getCallingClassLineNumber() {
-		return getCallingStackElem().getLineNumber();
-	}
 }
@@ -1,324 +1,3209 @@
 package com.aarontharris.bionicviews;
 
+import android.content.Context;
+import android.content.ContextWrapper;
+import android.os.Bundle;
+import android.os.Parcelable;
 import android.view.View;
-import android.view.ViewGroup;
-import android.view.ViewParent;
 
+import java.io.Serializable;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
 import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Map;
-import java.util.WeakHashMap;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 
+/**
+ * Typed values scoped to a tree of Views (or any {@link BionicTree}), looked up from the nearest providing ancestor.<br>
+ * Reads, subscriptions and delivery belong to the tree's owner thread, the main thread for Views, reads from elsewhere log and return their default.
+ * Puts are safe from any thread: they are queued, last writer wins, and applied on the owner thread
+ * as one batch per frame, see {@link BionicTree#isOwnerThread()}.<br>
+ */
 public class Bionic {
-	private static final Bionic self = new Bionic();
+	// Built on first use so hosts that never touch Views, such as the JVM benchmarks, never create a ViewTree
+	private static final class Global {
+		static final Bionic self = new Bionic();
+
+		static {
+			self.global = true;
+		}
+	}
 
+	/**
+	 * The process wide Bionic, for views outside of any scope.<br>
+	 * Its View accessors act on the scope claiming the view, so code written before scopes keeps working,
+	 * but prefer {@link #of(View)} which finds the view's own scope and falls back to this one.
+	 */
 	public static Bionic get() {
-		return self;
+		return Global.self;
 	}
 
-	public static abstract class BionicKey<T> {
-		public abstract T get( Meta meta );
+	/**
+	 * Implemented by the Activity (or any Context) owning a scope, so views find it before they are attached,
+	 * while they are being inflated, see {@link #of(View)}
+	 */
+	public static interface ScopeOwner {
+		public Bionic getBionicScope();
 	}
 
-	public static class StringKey extends BionicKey<String> {
-		@Override
-		public String get( Meta meta ) {
-			return (String) meta.getObject( this, null );
-		}
+	/**
+	 * A Bionic of its own for the given root, usually an Activity's decor view, so its subscriber indexes
+	 * and pending writes hold nothing but this window's.<br>
+	 * Tear it down with {@link #destroy()} when the window goes away.
+	 *
+	 * @param root
+	 */
+	public static Bionic createScope( View root ) {
+		Bionic scope = new Bionic();
+		scope.scopeRoot = new WeakReference<Object>( root );
+		root.setTag( R.id.bionic_scope, scope );
+		return scope;
 	}
 
 	/**
-	 * A simple BionicKey that just puts and gets an object associated with the given key without any translation.<br>
-	 * The type is just cast to T when returned.<br>
-	 * Convenience for what is likely to be the 99% use case.<br>
+	 * The Bionic the view belongs to, {@link #get()} if none claims it.<br>
+	 * Checked in order: the Bionic of the view's own meta, the scope tagged on the view or its root view,
+	 * the {@link ScopeOwner} among its contexts.<br>
+	 * A scope found on the root or a context is tagged on the view, so only the first call walks up the parents
+	 * and contexts, later ones are O(1). Views no scope claims fall back to {@link #get()} uncached and walk every time,
+	 * a scope may still claim them once they are attached.
 	 *
-	 * @param <T>
+	 * @param view
 	 */
-	public static class SimpleKey<T> extends BionicKey<T> {
-		@Override
-		public T get( Meta meta ) {
-			return (T) meta.getObject( this, null );
+	public static Bionic of( View view ) {
+		Object meta = view.getTag( R.id.bionic_meta );
+		if ( meta instanceof Meta ) {
+			return ( (Meta) meta ).getBionic();
+		}
+		Object scope = view.getTag( R.id.bionic_scope );
+		if ( isLive( scope ) ) {
+			return (Bionic) scope;
+		}
+		scope = view.getRootView().getTag( R.id.bionic_scope );
+		if ( !isLive( scope ) ) {
+			scope = null;
+			Context context = view.getContext();
+			while ( context != null && scope == null ) {
+				if ( context instanceof ScopeOwner ) {
+					scope = ( (ScopeOwner) context ).getBionicScope();
+					if ( !isLive( scope ) ) {
+						return Global.self;
+					}
+				}
+				context = context instanceof ContextWrapper ? ( (ContextWrapper) context ).getBaseContext() : null;
+			}
+			if ( scope == null ) {
+				return Global.self;
+			}
 		}
+		view.setTag( R.id.bionic_scope, scope );
+		return (Bionic) scope;
 	}
 
-	public static interface OnKeyChange<KEY extends BionicKey<?>> {
-		/**
-		 * Handle an event propogated to this Meta.
-		 *
-		 * @param metaSend - the meta that created the event
-		 * @param metaRecv - the meta receiving the event
-		 * @param event
-		 * @return propagate? false if the event was consumed and should not be propagated.
-		 */
-		public boolean handleEvent( Meta metaSend, Meta metaRecv, KeyChange<KEY> event );
+	private static boolean isLive( Object scope ) {
+		return scope instanceof Bionic && !( (Bionic) scope ).destroyed; // a destroyed scope gives its views back to the global
 	}
 
-	public static abstract class MetaEvent {
-		private Class<? extends MetaEvent> type;
+	/**
+	 * The global stands in for whichever scope claims the view, see {@link #get()}
+	 */
+	private Bionic forView( View view ) {
+		return global && view != null ? of( view ) : this;
+	}
 
-		public MetaEvent( Class<? extends MetaEvent> type ) {
-			this.type = type;
-		}
+	private final BionicTree tree;
+	private WeakReference<Object> scopeRoot = null; // see createScope()
+	private boolean destroyed = false;
+	private boolean global = false; // see get()
 
-		public Class<? extends MetaEvent> getType() {
-			return type;
+	/**
+	 * A Bionic over the Android View hierarchy, like {@link #get()}
+	 */
+	public Bionic() {
+		this( new ViewTree() );
+	}
+
+	/**
+	 * A Bionic over any tree, for instance a {@link VirtualTree} of {@link VirtualNode}s.<br>
+	 * Use the node flavors of the accessors such as {@link #attainNodeMeta(Object)} with trees of anything but Views.
+	 *
+	 * @param tree
+	 */
+	public Bionic( BionicTree tree ) {
+		if ( tree.bionic != null ) {
+			throw new IllegalStateException( "The tree already belongs to another Bionic" );
 		}
+		this.tree = tree;
+		tree.bionic = this;
 	}
 
+	public BionicTree getTree() {
+		return tree;
+	}
 
-	public static class KeyChange<KEY extends BionicKey<?>> extends MetaEvent {
-		private KEY key;
+	private BionicMetrics metrics = null;
+	private long versionClock = 0; // stamps every delivered put, see Meta#getVersion
 
-		public KeyChange( KEY key ) {
-			super( KeyChange.class );
-			this.key = key;
+	/**
+	 * Start recording into the given metrics, null to stop.<br>
+	 * Costs next to nothing while unset, so it is safe to leave the calls in release builds.
+	 *
+	 * @param metrics
+	 */
+	public void setMetrics( BionicMetrics metrics ) {
+		if ( metrics != null && metrics != this.metrics ) {
+			BionicMetrics.prune( attained );
+			metrics.metasExisting( attained ); // a screen already leaking shows up right away
 		}
+		this.metrics = metrics;
+	}
 
-		public KEY getKey() {
-			return key;
+	/**
+	 * @return null unless set, see {@link #setMetrics(BionicMetrics)}
+	 */
+	public BionicMetrics getMetrics() {
+		return metrics;
+	}
+
+	private void swallowed() {
+		if ( metrics != null ) {
+			metrics.swallowed();
 		}
 	}
 
+	private static final AtomicInteger nextKeyId = new AtomicInteger();
+	private static final HashMap<String, BionicKey<?>> savedKeys = new HashMap<>(); // see BionicKey#saveAs
 
-	// Meta is an inner class because it is managed by Bionic
-	// Each Meta should only be alive as long as its manager, so its okay to nest.
-	public class Meta {
-		private Map<BionicKey<?>, Object> data; // WeakHashMap?
-		private Map<BionicKey<?>, OnKeyChange> subscribedKeyChangedEvents = null; // WeakHashMap?
+	/**
+	 * Decides whether a put actually changes a key's value, see {@link BionicKey#BionicKey(Equivalence)}
+	 *
+	 * @param <T>
+	 */
+	public static interface Equivalence<T> {
+		public static final Equivalence<Object> EQUALS = new Equivalence<Object>() {
+			@Override
+			public boolean equivalent( Object oldValue, Object newValue ) {
+				return oldValue == null ? newValue == null : oldValue.equals( newValue );
+			}
+		};
 
-		public Meta() {
-		}
+		public static final Equivalence<Object> IDENTITY = new Equivalence<Object>() {
+			@Override
+			public boolean equivalent( Object oldValue, Object newValue ) {
+				return oldValue == newValue;
+			}
+		};
 
-		public boolean containsKey( BionicKey<?> key ) {
-			return data != null && data.containsKey( key );
+		/**
+		 * @return true to keep the old value and skip delivery
+		 */
+		public boolean equivalent( T oldValue, T newValue );
+	}
+
+	public static abstract class BionicKey<T> {
+		final int id = nextKeyId.getAndIncrement(); // dense, see KeyTable
+		private KeyChange<?>[] changes = null; // KeyChange is immutable so every put of this key shares one
+		private ComputedKey<?>[] dependents = null; // computed keys reading this key, see ComputedKey
+		private KeyChange<?>[] cascade = null; // this key's change followed by those of every dependent, see cascade()
+		final Equivalence<? super T> equivalence;
+		private String savedName = null;
+
+		/**
+		 * Every put is a change and is delivered, even if the value is the same
+		 */
+		public BionicKey() {
+			this( null );
 		}
 
 		/**
-		 * Find the nearest ancestor to the meta's view containing the given key and return its value<br>
-		 * If key is not obtainable, defaultValue is returned<br>
+		 * Puts of a value equivalent to the one already held are dropped, neither stored nor delivered.
 		 *
-		 * @param key
-		 * @param defaultValue
+		 * @param equivalence such as {@link Equivalence#EQUALS}, null to deliver every put
 		 */
-		public Object getObject( BionicKey<?> key, Object defaultValue ) {
-			try {
-				Meta meta = Bionic.this.lookup( getView( this ), key );
-				return meta.data.get( key );
-			} catch ( Exception e ) {
-				BLog.e( e );
-			}
-			return defaultValue;
+		public BionicKey( Equivalence<? super T> equivalence ) {
+			this.equivalence = equivalence;
 		}
 
+		public abstract T get( Meta meta );
 
 		/**
-		 * Get a typed value based on the given type aware key.<br>
-		 * Find the nearest ancestor to the given view containing the given key and return its value<br>
-		 * If key is not obtainable, defaultValue is returned<br>
+		 * Include this key's values in {@link Bionic#saveState(View, Bundle)} under the given name.<br>
+		 * The name must be unique across the app and stable across releases, the key must be created before
+		 * {@link Bionic#restoreState(View, Bundle)} runs.<br>
+		 * <pre>
+		 * public static final StringKey title = new StringKey().saveAs( "title" );
+		 * </pre>
+		 * Saved values must be primitives, Strings, Parcelables or Serializables.
 		 *
-		 * @param key
-		 * @param defaultValue
-		 * @param <T>
-		 * @return
+		 * @param name
+		 * @return this key
 		 */
-		public <T> T getValue( BionicKey<T> key, T defaultValue ) {
-			try {
-				return Bionic.this.getValue( getView( this ), key, defaultValue );
-			} catch ( Exception e ) {
-				BLog.e( e );
+		@SuppressWarnings( "unchecked" ) // K is this key's own class, as in the field initializers saveAs is meant for
+		public final <K extends BionicKey<T>> K saveAs( String name ) {
+			synchronized ( savedKeys ) {
+				BionicKey<?> previous = savedKeys.get( name );
+				if ( previous != null && previous != this ) {
+					throw new IllegalArgumentException( "Another key is already saved as " + name );
+				}
+				savedKeys.put( name, this );
 			}
-			return defaultValue;
+			savedName = name;
+			return (K) this;
+		}
+
+		@SuppressWarnings( "unchecked" ) // values put under this key are Ts
+		private boolean isUnchanged( Object oldValue, Object newValue ) {
+			return equivalence != null && ( (Equivalence<Object>) equivalence ).equivalent( oldValue, newValue );
+		}
+
+		private KeyChange<?>[] changes() {
+			if ( changes == null ) {
+				changes = new KeyChange<?>[] { new KeyChange<>( this ) };
+			}
+			return changes;
 		}
 
 		/**
-		 * Put a typed value based on the given type aware key<br>
-		 * Attains a Meta for the given View and associates the value.
-		 *
-		 * @param key
-		 * @param value
-		 * @param <T>
-		 * @throws Exception
+		 * The changes delivered when this key is put, its own first, then those of the computed keys depending on it
 		 */
-		public <T> void putValue( BionicKey<T> key, T value ) throws Exception {
-			if ( data == null ) {
-				data = new HashMap<>();
-			}
-			data.put( key, value );
-			try {
-				notifyChildren( this, new KeyChange( key ) );
-			} catch ( Exception e ) {
-				BLog.e( e );
+		private KeyChange<?>[] cascade() {
+			if ( cascade == null ) {
+				if ( dependents == null ) {
+					cascade = changes();
+				} else {
+					ArrayList<KeyChange<?>> events = new ArrayList<>();
+					collectCascade( events );
+					if ( events.size() > 64 ) {
+						throw new IllegalStateException( "More than 63 computed keys depend on this key" );
+					}
+					cascade = events.toArray( new KeyChange<?>[events.size()] );
+				}
 			}
+			return cascade;
 		}
 
-		public <T extends BionicKey<?>> void subscribeKeyChange( T key, boolean asap, OnKeyChange<T> eventHandler ) {
-			if ( subscribedKeyChangedEvents == null ) {
-				subscribedKeyChangedEvents = new HashMap<>();
+		private void collectCascade( ArrayList<KeyChange<?>> events ) {
+			KeyChange<?> event = changes()[0];
+			if ( events.contains( event ) ) {
+				return;
 			}
-			subscribedKeyChangedEvents.put( key, eventHandler );
-			try {
-				if ( asap ) {
-					Meta meta = lookup( getView( this ), key );
-					if ( meta != null ) {
-						KeyChange event = new KeyChange( key );
-						if ( eventHandler.handleEvent( meta, this, event ) ) {
-							notifyChildren( meta, event );
-						}
-					}
+			events.add( event );
+			if ( dependents != null ) {
+				for ( BionicKey<?> dependent : dependents ) {
+					dependent.collectCascade( events );
 				}
-			} catch ( Exception e ) {
-				BLog.e( e );
 			}
 		}
 
-		private void onEvent( Meta metaSend, MetaEvent event ) throws Exception {
-			if ( KeyChange.class.equals( event.getType() ) ) {
-				KeyChange kEvent = (KeyChange) event;
-
-				// Don't deliver key events to metas that overwrite the key
-				// also do not propagate beyond this meta since the children should
-				// not care about key changes above this meta (since it controls this key)
-				if ( containsKey( kEvent.getKey() ) ) {
-					return;
+		private void dependentAdded() {
+			cascade = null;
+			cascade(); // fail on construction rather than on a put
+			if ( this instanceof ComputedKey ) {
+				for ( BionicKey<?> dependency : ( (ComputedKey<?>) this ).dependencies ) {
+					dependency.dependentAdded();
 				}
+			}
+		}
+	}
 
-				// Key Change Events
-				if ( event instanceof KeyChange ) {
-					if ( subscribedKeyChangedEvents != null ) {
-						OnKeyChange onMetaEvent = subscribedKeyChangedEvents.get( kEvent.getKey() );
-						if ( onMetaEvent != null ) {
-							if ( onMetaEvent.handleEvent( metaSend, this, (KeyChange) event ) ) {
-								notifyChildren( metaSend, event );
-								return;
-							}
-						}
-					}
-				}
+	public static class StringKey extends BionicKey<String> {
+		public StringKey() {
+		}
 
-			}
-			notifyChildren( metaSend, event );
+		public StringKey( Equivalence<? super String> equivalence ) {
+			super( equivalence );
 		}
 
-		private void notifyChildren( Meta metaSend, MetaEvent event ) throws Exception {
-			View view = getView( this );
-			Bionic.this.notifyChildren( view, metaSend, event );
+		@Override
+		public String get( Meta meta ) {
+			return (String) meta.getObject( this, null );
 		}
 	}
 
-	private WeakHashMap<View, Meta> viewMetaMap = new WeakHashMap<>();
-	private WeakHashMap<Meta, WeakReference<View>> metaViewMap = new WeakHashMap<>();
-
 	/**
-	 * @return may be null if no meta was attained, see {@link #attainMeta(View)}
+	 * A simple BionicKey that just puts and gets an object associated with the given key without any translation.<br>
+	 * The type is just cast to T when returned.<br>
+	 * Convenience for what is likely to be the 99% use case.<br>
+	 *
+	 * @param <T>
 	 */
-	public Meta getMeta( View view ) {
-		if ( viewMetaMap != null ) {
-			return viewMetaMap.get( view );
+	public static class SimpleKey<T> extends BionicKey<T> {
+		public SimpleKey() {
 		}
-		return null;
-	}
 
-	public Meta attainMeta( View view ) throws Exception {
-		Meta meta = getMeta( view );
-		if ( meta == null ) {
-			meta = new Meta();
-			viewMetaMap.put( view, meta );
-			metaViewMap.put( meta, new WeakReference<View>( view ) );
+		public SimpleKey( Equivalence<? super T> equivalence ) {
+			super( equivalence );
+		}
+
+		@SuppressWarnings( "unchecked" )
+		@Override
+		public T get( Meta meta ) {
+			return (T) meta.getObject( this, null );
 		}
-		return meta;
 	}
 
 	/**
-	 * @return never null
+	 * A BionicKey whose values are stored unboxed.<br>
+	 * Use the typed accessors such as {@link Meta#putInt(IntKey, int)} and {@link Meta#getInt(IntKey, int)} to avoid boxing altogether,
+	 * generic puts and gets still work and convert at the boundary.<br>
+	 *
+	 * @param <T> the boxed type
 	 */
-	private View getView( Meta meta ) throws Exception {
-		View view = metaViewMap.get( meta ).get(); // should never be null since a meta should not exist outside the scope of the view
-		if ( view == null ) {
-			metaViewMap.remove( meta );
+	public static abstract class PrimitiveKey<T> extends BionicKey<T> {
+		PrimitiveKey( Equivalence<? super T> equivalence ) {
+			super( equivalence );
 		}
-		if ( view == null ) {
-			throw new IllegalStateException( "No View associated with this Meta!" );
-		}
-		return view;
-	}
 
-	public void notifyChildren( View view, Meta metaSend, MetaEvent event ) throws Exception {
-		if ( view != null && view instanceof ViewGroup ) {
-			ViewGroup viewGroup = (ViewGroup) view;
-			int childCount = viewGroup.getChildCount();
-			for ( int childIdx = 0; childIdx < childCount; childIdx++ ) {
-				View childView = viewGroup.getChildAt( childIdx );
-				Meta meta = getMeta( childView );
-				if ( meta == null ) {
-					notifyChildren( childView, metaSend, event ); // recursive for speediness
-				} else {
-					try {
-						meta.onEvent( metaSend, event );
-					} catch ( Exception e ) {
-						BLog.e( e );
-					}
-				}
+		abstract long toBits( T value );
+
+		abstract T fromBits( long bits );
+
+		@SuppressWarnings( "unchecked" ) // fromBits yields Ts
+		private boolean isUnchangedBits( long oldBits, long newBits ) {
+			if ( equivalence == null ) {
+				return false;
+			}
+			if ( equivalence == Equivalence.EQUALS || equivalence == Equivalence.IDENTITY ) {
+				return oldBits == newBits; // identity of boxes means nothing, compare the values without boxing them
 			}
+			return ( (Equivalence<Object>) equivalence ).equivalent( fromBits( oldBits ), fromBits( newBits ) );
+		}
+
+		@SuppressWarnings( "unchecked" )
+		@Override
+		public T get( Meta meta ) {
+			return (T) meta.getObject( this, null );
 		}
 	}
 
-	private Meta lookup( View view, BionicKey<?> key ) throws Exception {
-		Meta meta = viewMetaMap.get( view );
-		if ( meta != null && meta.containsKey( key ) ) {
-			return meta;
+	public static class IntKey extends PrimitiveKey<Integer> {
+		public IntKey() {
+			super( null );
 		}
 
-		if ( view instanceof ViewGroup ) {
-			ViewParent ptr = view.getParent();
-			while ( ptr != null ) {
-				meta = viewMetaMap.get( ptr );
-				if ( meta != null && meta.containsKey( key ) ) {
-					return meta;
-				}
-				ptr = ptr.getParent();
-			}
+		public IntKey( Equivalence<? super Integer> equivalence ) {
+			super( equivalence );
 		}
-		return null;
-	}
 
-	/**
-	 * Get a typed value based on the given type aware key.<br>
-	 * Find the nearest ancestor to the given view containing the given key and return its value<br>
-	 * If key is not obtainable, defaultValue is returned<br>
-	 *
-	 * @param view
-	 * @param key
-	 * @param defaultValue
-	 * @param <T>
-	 * @return
-	 */
-	public <T> T getValue( View view, BionicKey<T> key, T defaultValue ) {
-		try {
-			if ( view == null ) {
-				throw new NullPointerException( "View cannot be null" );
-			}
-			Meta meta = lookup( view, key );
-			if ( meta != null ) {
-				return key.get( meta );
-			}
-		} catch ( Exception e ) {
-			BLog.e( e );
+		@Override
+		long toBits( Integer value ) {
+			return value;
 		}
-		return defaultValue;
-	}
 
-	/**
-	 * Put a typed value based on the given type aware key<br>
-	 * Attains a Meta for the given View and associates the value.
-	 *
-	 * @param view
-	 * @param key
-	 * @param value
-	 * @param <T>
-	 * @throws Exception
-	 */
-	public <T> void putValue( View view, BionicKey<T> key, T value ) throws Exception {
-		attainMeta( view ).putValue( key, value );
+		@Override
+		Integer fromBits( long bits ) {
+			return (int) bits;
+		}
+
+		public int getInt( Meta meta, int defaultValue ) {
+			return meta.getInt( this, defaultValue );
+		}
 	}
 
+	public static class LongKey extends PrimitiveKey<Long> {
+		public LongKey() {
+			super( null );
+		}
+
+		public LongKey( Equivalence<? super Long> equivalence ) {
+			super( equivalence );
+		}
+
+		@Override
+		long toBits( Long value ) {
+			return value;
+		}
+
+		@Override
+		Long fromBits( long bits ) {
+			return bits;
+		}
+
+		public long getLong( Meta meta, long defaultValue ) {
+			return meta.getLong( this, defaultValue );
+		}
+	}
+
+	public static class FloatKey extends PrimitiveKey<Float> {
+		public FloatKey() {
+			super( null );
+		}
+
+		public FloatKey( Equivalence<? super Float> equivalence ) {
+			super( equivalence );
+		}
+
+		@Override
+		long toBits( Float value ) {
+			return Float.floatToRawIntBits( value );
+		}
+
+		@Override
+		Float fromBits( long bits ) {
+			return Float.intBitsToFloat( (int) bits );
+		}
+
+		public float getFloat( Meta meta, float defaultValue ) {
+			return meta.getFloat( this, defaultValue );
+		}
+	}
+
+	public static class BooleanKey extends PrimitiveKey<Boolean> {
+		public BooleanKey() {
+			super( null );
+		}
+
+		public BooleanKey( Equivalence<? super Boolean> equivalence ) {
+			super( equivalence );
+		}
+
+		@Override
+		long toBits( Boolean value ) {
+			return value ? 1L : 0L;
+		}
+
+		@Override
+		Boolean fromBits( long bits ) {
+			return bits != 0L;
+		}
+
+		public boolean getBoolean( Meta meta, boolean defaultValue ) {
+			return meta.getBoolean( this, defaultValue );
+		}
+	}
+
+	/**
+	 * A key whose value is computed from other keys rather than put.<br>
+	 * <pre>
+	 * public static final ComputedKey&lt;String&gt; label = new ComputedKey&lt;String&gt;( title, count ) {
+	 *     protected String compute( Meta meta ) {
+	 *         return meta.getValue( title, "" ) + " (" + meta.getInt( count, 0 ) + ")";
+	 *     }
+	 * };
+	 * </pre>
+	 * The value is provided by the nearest meta providing any of the dependencies, computed there only when first read
+	 * and memoized until one of the dependencies as seen from there changes. Every subscriber below shares it.<br>
+	 * A put of a dependency is also delivered as a change of the computed key, in the same traversal,
+	 * to subscribers whose dependencies it actually changed.<br>
+	 * Dependencies may be computed keys themselves, they must be created first so there can be no cycles.<br>
+	 *
+	 * @param <T>
+	 */
+	public static abstract class ComputedKey<T> extends BionicKey<T> {
+		private final BionicKey<?>[] dependencies;
+
+		/**
+		 * @param dependencies every key compute() reads, reads of any other key are not tracked
+		 */
+		public ComputedKey( BionicKey<?>... dependencies ) {
+			if ( dependencies.length == 0 ) {
+				throw new IllegalArgumentException( "A computed key needs dependencies" );
+			}
+			this.dependencies = dependencies.clone();
+			for ( BionicKey<?> dependency : this.dependencies ) {
+				dependency.dependents = dependency.dependents == null ? new ComputedKey<?>[] { this } : append( dependency.dependents, this );
+				dependency.dependentAdded();
+			}
+		}
+
+		/**
+		 * Compute the value from the dependencies as seen from the given meta
+		 *
+		 * @param meta the providing meta, read the dependencies through it
+		 */
+		protected abstract T compute( Meta meta );
+
+		@SuppressWarnings( "unchecked" )
+		@Override
+		public final T get( Meta meta ) {
+			return (T) meta.getComputed( this );
+		}
+	}
+
+	public static interface OnKeyChange<KEY extends BionicKey<?>> {
+		/**
+		 * Handle an event propogated to this Meta.
+		 *
+		 * @param metaSend - the meta that created the event
+		 * @param metaRecv - the meta receiving the event
+		 * @param event
+		 * @return propagate? false if the event was consumed and should not be propagated.
+		 * Only the subtree below metaRecv is pruned, see {@link Bionic#stopDispatch()} to end the delivery entirely.
+		 */
+		public boolean handleEvent( Meta metaSend, Meta metaRecv, KeyChange<KEY> event );
+	}
+
+	/**
+	 * A handler of custom events, see {@link Meta#subscribeEvent(Class, OnMetaEvent)}
+	 *
+	 * @param <EVENT>
+	 */
+	public static interface OnMetaEvent<EVENT extends MetaEvent> {
+		/**
+		 * Handle an event propogated to this Meta.
+		 *
+		 * @param metaSend - the meta that created the event
+		 * @param metaRecv - the meta receiving the event
+		 * @param event
+		 * @return propagate? false if the event was consumed and should not be propagated.
+		 * Only the subtree below metaRecv is pruned, see {@link Bionic#stopDispatch()} to end the delivery entirely.
+		 */
+		public boolean handleEvent( Meta metaSend, Meta metaRecv, EVENT event );
+	}
+
+	/**
+	 * Receives the values of a {@link KeyStream}
+	 *
+	 * @param <T>
+	 */
+	public static interface KeyObserver<T> {
+		/**
+		 * @param value the latest value as seen from the observed meta
+		 */
+		public void onValue( T value );
+	}
+
+	/**
+	 * A block of puts to be delivered together, see {@link #batch(Batch)}
+	 */
+	public static interface Batch {
+		public void run() throws Exception;
+	}
+
+	public static abstract class MetaEvent {
+		private Class<? extends MetaEvent> type;
+
+		public MetaEvent( Class<? extends MetaEvent> type ) {
+			this.type = type;
+		}
+
+		public Class<? extends MetaEvent> getType() {
+			return type;
+		}
+	}
+
+
+	public static class KeyChange<KEY extends BionicKey<?>> extends MetaEvent {
+		private final KEY key;
+
+		public KeyChange( KEY key ) {
+			super( KeyChange.class );
+			this.key = key;
+		}
+
+		public KEY getKey() {
+			return key;
+		}
+	}
+
+
+	// Meta is an inner class because it is managed by Bionic
+	// Each Meta should only be alive as long as its manager, so its okay to nest.
+	public class Meta {
+		private KeyTable<Object> data = null;
+		private KeyTable<OnKeyChange<?>[]> subscribedKeyChangedEvents = null; // copy on write, dispatch iterates them as is
+		private Class<?>[] subscribedEventTypes = null; // parallel with subscribedEvents, see subscribeEvent()
+		private OnMetaEvent<?>[][] subscribedEvents = null;
+		private Class<?>[] descendantEventTypes = null; // parallel with descendantEvents, see subscribeDescendantEvent()
+		private OnMetaEvent<?>[][] descendantEvents = null;
+		private Class<?>[] ancestorRouteTypes = null; // parallel with ancestorRoutes, see Bionic#notifyNodeAncestors()
+		private AncestorRoute[] ancestorRoutes = null;
+		private KeyTable<Resolution> resolved = null; // key -> providing meta, see resolve()
+		private int placement = 0; // bumped whenever this meta's node may have new ancestors, see Bionic#onNodeMoved
+		private KeyTable<Computed> computed = null; // computed key -> memoized value provided here, see getComputed()
+		private KeyTable<KeyStream<?>> streams = null; // see observe()
+		private KeyTable<Meta> deliveredFrom = null; // subscribed key -> provider last delivered from, see revalidate()
+		private boolean deferWhileHidden = false;
+		private int suspended = 0;
+		private KeyTable<Meta> deferred = null; // key -> latest sender of changes held back, see setDeferWhileHidden()
+		private Runnable flushDeferred = null;
+		private boolean watchingVisibility = false;
+		private final NodeRef nodeRef; // the node holds the meta, never the other way around
+
+		private Meta( Object node ) {
+			this.nodeRef = new NodeRef( node, this, collectedNodes );
+		}
+
+		public Bionic getBionic() {
+			return Bionic.this;
+		}
+
+		/**
+		 * Drop every value this meta holds, for views that get rebound such as RecyclerView items.<br>
+		 * Subscriptions stay and so does the storage, so rebinding the same keys allocates nothing.
+		 * Nothing is delivered, the values put while rebinding are.<br>
+		 */
+		public void reset() {
+			if ( data != null && data.size() > 0 ) {
+				data.clear();
+				invalidateResolutions( this, null ); // no longer provided here, one walk for every key
+			}
+			if ( computed != null ) {
+				computed.clear();
+			}
+			if ( deferred != null ) {
+				deferred.clear();
+			}
+		}
+
+		/**
+		 * Its node was collected while something still held on to this meta, let go of everything it references
+		 * so the values do not outlive the screen, see {@link Bionic#reclaim()}.
+		 */
+		private void release() {
+			reset();
+			data = null;
+			if ( subscribedKeyChangedEvents != null ) {
+				for ( int slot = 0; slot < subscribedKeyChangedEvents.capacity(); slot++ ) {
+					BionicKey<?> key = subscribedKeyChangedEvents.keyAt( slot );
+					if ( key != null ) {
+						keySubscribers.get( key ).remove( this );
+					}
+				}
+				subscribedKeyChangedEvents = null;
+			}
+			if ( subscribedEventTypes != null ) {
+				for ( Class<?> type : subscribedEventTypes ) {
+					eventSubscribersFor( type ).remove( this );
+				}
+				subscribedEventTypes = null;
+				subscribedEvents = null;
+			}
+			if ( descendantEventTypes != null ) {
+				descendantEventTypes = null;
+				descendantEvents = null;
+				ancestorSubscriptions++;
+			}
+			resolved = null;
+			computed = null;
+			streams = null;
+			deliveredFrom = null;
+			deferred = null;
+			flushDeferred = null;
+			ancestorRouteTypes = null;
+			ancestorRoutes = null;
+		}
+
+		/**
+		 * @return null once the node was collected
+		 */
+		Object peekNode() {
+			return nodeRef.get();
+		}
+
+		int size() {
+			return data == null ? 0 : data.size();
+		}
+
+		/**
+		 * Rough bytes this meta keeps reachable, its values included, see {@link BionicMetrics#retainedMetas()}
+		 */
+		long approximateSize() {
+			long size = 96; // the meta and its node reference
+			if ( data != null ) {
+				size += data.approximateSize();
+				for ( int slot = 0; slot < data.capacity(); slot++ ) {
+					if ( data.keyAt( slot ) != null && !data.isBitsAt( slot ) ) {
+						size += BionicMetrics.approximateSize( data.valueAt( slot ) );
+					}
+				}
+			}
+			if ( computed != null ) {
+				size += computed.approximateSize();
+				for ( int slot = 0; slot < computed.capacity(); slot++ ) {
+					Computed memo = computed.valueAt( slot );
+					if ( memo != null ) {
+						size += 40 + 8L * memo.versions.length + BionicMetrics.approximateSize( memo.value );
+					}
+				}
+			}
+			if ( subscribedKeyChangedEvents != null ) {
+				size += subscribedKeyChangedEvents.approximateSize();
+			}
+			if ( resolved != null ) {
+				size += resolved.approximateSize() + 24L * resolved.size();
+			}
+			if ( deliveredFrom != null ) {
+				size += deliveredFrom.approximateSize();
+			}
+			if ( deferred != null ) {
+				size += deferred.approximateSize();
+			}
+			return size;
+		}
+
+		/**
+		 * @return true if this meta itself provides the key.<br>
+		 * Owner thread only, see {@link BionicTree#isOwnerThread()}
+		 */
+		public boolean containsKey( BionicKey<?> key ) {
+			if ( !isReadThread() ) {
+				return false;
+			}
+			return hasLocal( key );
+		}
+
+		private boolean hasLocal( BionicKey<?> key ) {
+			return data != null && data.containsKey( key );
+		}
+
+		/**
+		 * Find the nearest ancestor to the meta's view containing the given key and return its value<br>
+		 * If key is not obtainable, defaultValue is returned<br>
+		 * Owner thread only, see {@link BionicTree#isOwnerThread()}
+		 *
+		 * @param key
+		 * @param defaultValue
+		 */
+		public Object getObject( BionicKey<?> key, Object defaultValue ) {
+			if ( !isReadThread() ) {
+				return defaultValue;
+			}
+			try {
+				Meta meta = Bionic.this.lookup( getNode( this ), key );
+				if ( meta != null ) {
+					return key instanceof ComputedKey ? meta.getComputed( (ComputedKey<?>) key ) : meta.localObject( key );
+				}
+			} catch ( Exception e ) {
+				BLog.e( e );
+				swallowed();
+			}
+			return defaultValue;
+		}
+
+		/**
+		 * Unboxed {@link #getValue(BionicKey, Object)}, owner thread only
+		 */
+		public int getInt( IntKey key, int defaultValue ) {
+			return (int) getBits( key, defaultValue );
+		}
+
+		/**
+		 * Unboxed {@link #getValue(BionicKey, Object)}, owner thread only
+		 */
+		public long getLong( LongKey key, long defaultValue ) {
+			return getBits( key, defaultValue );
+		}
+
+		/**
+		 * Unboxed {@link #getValue(BionicKey, Object)}, owner thread only
+		 */
+		public float getFloat( FloatKey key, float defaultValue ) {
+			return Float.intBitsToFloat( (int) getBits( key, Float.floatToRawIntBits( defaultValue ) ) );
+		}
+
+		/**
+		 * Unboxed {@link #getValue(BionicKey, Object)}, owner thread only
+		 */
+		public boolean getBoolean( BooleanKey key, boolean defaultValue ) {
+			return getBits( key, defaultValue ? 1L : 0L ) != 0L;
+		}
+
+		/**
+		 * Find the nearest ancestor to the meta's view containing the given key and return its raw bits<br>
+		 * If key is not obtainable, defaultBits is returned<br>
+		 */
+		private long getBits( PrimitiveKey<?> key, long defaultBits ) {
+			if ( !isReadThread() ) {
+				return defaultBits;
+			}
+			try {
+				Meta meta = Bionic.this.lookup( getNode( this ), key );
+				if ( meta != null ) {
+					return meta.localBits( key, defaultBits );
+				}
+			} catch ( Exception e ) {
+				BLog.e( e );
+				swallowed();
+			}
+			return defaultBits;
+		}
+
+		/**
+		 * @return the value held by this meta, boxing primitive keys on the way out
+		 */
+		private Object localObject( BionicKey<?> key ) {
+			int idx = data.indexOf( key );
+			if ( data.isBitsAt( idx ) ) {
+				return ( (PrimitiveKey<?>) key ).fromBits( data.bitsAt( idx ) );
+			}
+			return data.valueAt( idx );
+		}
+
+		/**
+		 * @return the unboxed value held by this meta, defaultBits if a null was put generically
+		 */
+		private long localBits( PrimitiveKey<?> key, long defaultBits ) {
+			int idx = data.indexOf( key );
+			return data.isBitsAt( idx ) ? data.bitsAt( idx ) : defaultBits;
+		}
+
+
+		/**
+		 * Get a typed value based on the given type aware key.<br>
+		 * Find the nearest ancestor to the given view containing the given key and return its value<br>
+		 * If key is not obtainable, defaultValue is returned<br>
+		 * Owner thread only, see {@link BionicTree#isOwnerThread()}
+		 *
+		 * @param key
+		 * @param defaultValue
+		 * @param <T>
+		 * @return
+		 */
+		public <T> T getValue( BionicKey<T> key, T defaultValue ) {
+			if ( !isReadThread() ) {
+				return defaultValue;
+			}
+			try {
+				return Bionic.this.getNodeValue( getNode( this ), key, defaultValue );
+			} catch ( Exception e ) {
+				BLog.e( e );
+				swallowed();
+			}
+			return defaultValue;
+		}
+
+		/**
+		 * Put a typed value based on the given type aware key<br>
+		 * Attains a Meta for the given View and associates the value.
+		 *
+		 * @param key
+		 * @param value
+		 * @param <T>
+		 * @throws Exception
+		 */
+		public <T> void putValue( BionicKey<T> key, T value ) throws Exception {
+			if ( key instanceof ComputedKey ) {
+				throw new IllegalArgumentException( "Computed keys cannot be put" );
+			}
+			if ( !tree.isOwnerThread() ) {
+				postValue( getNodeOrNull( this ), key, value );
+				return;
+			}
+			if ( key instanceof PrimitiveKey && value != null ) {
+				putBits( key, ( (PrimitiveKey<T>) key ).toBits( value ) );
+				return;
+			}
+			if ( data == null ) {
+				data = new KeyTable<>();
+			}
+			int idx = data.indexOf( key );
+			if ( idx >= 0 && !data.isBitsAt( idx ) && key.isUnchanged( data.valueAt( idx ), value ) ) {
+				return;
+			}
+			data.put( key, value );
+			boolean batched = stamp( key, idx );
+			onPut( key, idx < 0, batched );
+		}
+
+		public void putInt( IntKey key, int value ) throws Exception {
+			putBits( key, value );
+		}
+
+		public void putLong( LongKey key, long value ) throws Exception {
+			putBits( key, value );
+		}
+
+		public void putFloat( FloatKey key, float value ) throws Exception {
+			putBits( key, Float.floatToRawIntBits( value ) );
+		}
+
+		public void putBoolean( BooleanKey key, boolean value ) throws Exception {
+			putBits( key, value ? 1L : 0L );
+		}
+
+		private void putBits( BionicKey<?> key, long bits ) {
+			if ( !tree.isOwnerThread() ) {
+				postBits( getNodeOrNull( this ), key, bits );
+				return;
+			}
+			if ( data == null ) {
+				data = new KeyTable<>();
+			}
+			int idx = data.indexOf( key );
+			if ( idx >= 0 && data.isBitsAt( idx ) && ( (PrimitiveKey<?>) key ).isUnchangedBits( data.bitsAt( idx ), bits ) ) {
+				return;
+			}
+			data.putBits( key, bits );
+			boolean batched = stamp( key, idx );
+			onPut( key, idx < 0, batched );
+		}
+
+		/**
+		 * @param idx the key's slot before the put, -1 if it was just inserted
+		 * @return true if the key was already put here since the open batch began, see {@link Bionic#beginBatch()}
+		 */
+		private boolean stamp( BionicKey<?> key, int idx ) {
+			boolean batched = idx >= 0 && data.stampAt( idx ) > batchStart;
+			data.setStampAt( idx >= 0 ? idx : data.indexOf( key ), ++versionClock );
+			return batched;
+		}
+
+		/**
+		 * The version of the key's value as seen from this meta.<br>
+		 * Changes with every delivered put to the providing meta, so remembering it lets a subscriber skip work
+		 * when nothing happened, see {@link #hasChangedSince(BionicKey, long)}.<br>
+		 * Owner thread only, see {@link BionicTree#isOwnerThread()}
+		 *
+		 * @return 0 if no ancestor provides the key
+		 */
+		public long getVersion( BionicKey<?> key ) {
+			if ( !isReadThread() ) {
+				return 0L;
+			}
+			try {
+				return Bionic.this.getNodeVersion( getNode( this ), key );
+			} catch ( Exception e ) {
+				BLog.e( e );
+				swallowed();
+			}
+			return 0L;
+		}
+
+		/**
+		 * @param version as returned by {@link #getVersion(BionicKey)}
+		 * @return true if the key's value (or its provider) changed since
+		 */
+		public boolean hasChangedSince( BionicKey<?> key, long version ) {
+			return getVersion( key ) != version;
+		}
+
+		/**
+		 * @return true if this meta provides the key, or any dependency of a computed key
+		 */
+		private boolean provides( BionicKey<?> key ) {
+			if ( key instanceof ComputedKey ) {
+				for ( BionicKey<?> dependency : ( (ComputedKey<?>) key ).dependencies ) {
+					if ( provides( dependency ) ) {
+						return true;
+					}
+				}
+				return false;
+			}
+			return hasLocal( key );
+		}
+
+		/**
+		 * The value of the computed key as seen from this meta, computed by its provider at most once per change of the dependencies
+		 */
+		private Object getComputed( ComputedKey<?> key ) {
+			try {
+				Meta provider = Bionic.this.lookup( getNode( this ), key );
+				if ( provider == null ) {
+					return key.compute( this ); // nothing to memoize on, every dependency reads its default
+				}
+				Computed memo = provider.memo( key );
+				if ( !memo.valid ) {
+					memo.value = key.compute( provider );
+					memo.valid = true;
+				}
+				return memo.value;
+			} catch ( Exception e ) {
+				BLog.e( e );
+				swallowed();
+			}
+			return null;
+		}
+
+		/**
+		 * The memo of a computed key provided by this meta, invalidated if a dependency changed since it was last validated.<br>
+		 * Validating only compares versions, the value is computed lazily by {@link #getComputed(ComputedKey)}.
+		 */
+		private Computed memo( ComputedKey<?> key ) throws Exception {
+			if ( computed == null ) {
+				computed = new KeyTable<>();
+			}
+			Computed memo = computed.get( key );
+			if ( memo == null ) {
+				memo = new Computed();
+				memo.versions = new long[key.dependencies.length];
+				computed.put( key, memo );
+			}
+			Object node = getNode( this );
+			boolean changed = false;
+			for ( int i = 0; i < key.dependencies.length; i++ ) {
+				long version = getNodeVersion( node, key.dependencies[i] );
+				if ( memo.versions[i] != version ) {
+					memo.versions[i] = version;
+					changed = true;
+				}
+			}
+			if ( changed ) { // always the case for a new memo, this meta provides at least one dependency
+				memo.valid = false;
+				memo.value = null;
+				memo.version = ++versionClock;
+			}
+			return memo;
+		}
+
+		private void onPut( BionicKey<?> key, boolean added, boolean batched ) {
+			if ( added ) {
+				invalidateResolutions( this, key ); // this meta now provides (or shadows) the key
+			}
+			if ( streams != null ) {
+				notifyStreams( key.cascade() );
+			}
+			if ( batchDepth > 0 ) {
+				if ( !batched ) {
+					batchMetas.add( this ); // a repeated put is already pending, the stored value is the latest
+					batchKeys.add( key );
+				}
+				return;
+			}
+			try {
+				Bionic.this.notifyNodeChildren( getNode( this ), this, key.cascade() );
+			} catch ( Exception e ) {
+				BLog.e( e );
+				swallowed();
+			}
+		}
+
+		// A stream's key subscription only hears puts above this meta, so tell it of this meta's own
+		private void notifyStreams( KeyChange<?>[] changes ) {
+			for ( KeyChange<?> change : changes ) {
+				KeyStream<?> stream = streams.get( change.getKey() );
+				if ( stream != null ) {
+					stream.onLocalPut();
+				}
+			}
+		}
+
+		/**
+		 * Listen for changes of the given key put above this meta.<br>
+		 * Any number of handlers may listen to the same key, each is called once per change in the order subscribed.
+		 * Subscribing the same handler twice has no further effect.<br>
+		 *
+		 * @param key
+		 * @param asap true to also call the handler right away if an ancestor already provides the key
+		 * @param eventHandler
+		 */
+		public <T extends BionicKey<?>> void subscribeKeyChange( T key, boolean asap, OnKeyChange<T> eventHandler ) {
+			if ( subscribedKeyChangedEvents == null ) {
+				subscribedKeyChangedEvents = new KeyTable<>();
+			}
+			BionicKey<?> indexKey = key;
+			OnKeyChange<?>[] handlers = subscribedKeyChangedEvents.get( key );
+			if ( handlers == null ) {
+				subscribedKeyChangedEvents.put( key, new OnKeyChange<?>[] { eventHandler } );
+				keySubscribersFor( key ).add( this );
+			} else if ( indexOf( handlers, eventHandler ) < 0 ) {
+				subscribedKeyChangedEvents.put( key, append( handlers, eventHandler ) );
+			}
+			try {
+				Meta meta = lookup( getNode( this ), key );
+				if ( handlers == null ) {
+					deliveredFrom( key, meta == this ? null : meta ); // changes of its own key never reach this meta
+					if ( indexKey instanceof ComputedKey ) {
+						deliveredFrom.setStampAt( deliveredFrom.indexOf( key ), getVersion( key ) );
+					}
+				}
+				if ( asap && meta != null ) {
+					KeyChange<?> event = indexKey.changes()[0];
+					if ( deliverKeyChange( eventHandler, meta, event ) ) {
+						notifyChildren( meta, event );
+					}
+				}
+			} catch ( Exception e ) {
+				BLog.e( e );
+				swallowed();
+			}
+		}
+
+		/**
+		 * The values of the given key as seen from this meta, as a stream any number of observers can subscribe to.<br>
+		 * Changes are conflated, observers hear the latest value at most once per frame however fast it is put,
+		 * and everything is unsubscribed when the node is detached.<br>
+		 *
+		 * @param key
+		 * @return the same stream for every call with the same key
+		 */
+		public <T> KeyStream<T> observe( BionicKey<T> key ) {
+			if ( streams == null ) {
+				streams = new KeyTable<>();
+			}
+			@SuppressWarnings( "unchecked" ) // streams are only ever indexed under their own key
+			KeyStream<T> stream = (KeyStream<T>) streams.get( key );
+			if ( stream == null ) {
+				stream = new KeyStream<>( this, key );
+				streams.put( key, stream );
+			}
+			return stream;
+		}
+
+		/**
+		 * Subscribe one handler to several keys at once, as the binders generated for {@link BionicSubscribe} do.<br>
+		 * The handler tells the keys apart by {@link KeyChange#getKey()}, see {@link #subscribeKeyChange(BionicKey, boolean, OnKeyChange)}.
+		 *
+		 * @param keys
+		 * @param asap
+		 * @param eventHandler
+		 */
+		public void subscribeKeyChanges( BionicKey<?>[] keys, boolean asap, OnKeyChange<BionicKey<?>> eventHandler ) {
+			for ( BionicKey<?> key : keys ) {
+				this.<BionicKey<?>>subscribeKeyChange( key, asap, eventHandler );
+			}
+		}
+
+		/**
+		 * Stop calling the given handler on any of the given keys, see {@link #subscribeKeyChanges(BionicKey[], boolean, OnKeyChange)}
+		 */
+		public void unsubscribeKeyChanges( BionicKey<?>[] keys, OnKeyChange<BionicKey<?>> eventHandler ) {
+			for ( BionicKey<?> key : keys ) {
+				this.<BionicKey<?>>unsubscribeKeyChange( key, eventHandler );
+			}
+		}
+
+		/**
+		 * Stop calling the given handler on changes of the given key, see {@link #subscribeKeyChange(BionicKey, boolean, OnKeyChange)}
+		 */
+		public <T extends BionicKey<?>> void unsubscribeKeyChange( T key, OnKeyChange<T> eventHandler ) {
+			OnKeyChange<?>[] handlers = subscribedKeyChangedEvents == null ? null : subscribedKeyChangedEvents.get( key );
+			int idx = handlers == null ? -1 : indexOf( handlers, eventHandler );
+			if ( idx < 0 ) {
+				return;
+			}
+			if ( handlers.length > 1 ) {
+				subscribedKeyChangedEvents.put( key, remove( handlers, idx ) );
+				return;
+			}
+			subscribedKeyChangedEvents.remove( key );
+			deliveredFrom.remove( key );
+			keySubscribers.get( key ).remove( this );
+		}
+
+		private void deliveredFrom( BionicKey<?> key, Meta provider ) {
+			if ( deliveredFrom == null ) {
+				deliveredFrom = new KeyTable<>();
+			}
+			deliveredFrom.put( key, provider );
+		}
+
+		/**
+		 * This meta's node may have moved, tell subscribers whose key is now provided by a different meta.<br>
+		 * Only the subscribers here hear about it, metas below check themselves, see {@link Bionic#onNodeMoved(Object, boolean)}.
+		 * Losing a provider altogether is remembered but not delivered, as there is no sender to read from.<br>
+		 */
+		private void revalidate() throws Exception {
+			if ( subscribedKeyChangedEvents == null || subscribedKeyChangedEvents.size() == 0 ) {
+				return;
+			}
+			// copy out first, handlers may subscribe while we deliver
+			int capacity = subscribedKeyChangedEvents.capacity();
+			BionicKey<?>[] keys = new BionicKey<?>[capacity];
+			for ( int slot = 0; slot < capacity; slot++ ) {
+				keys[slot] = subscribedKeyChangedEvents.keyAt( slot );
+			}
+
+			Object node = getNode( this );
+			for ( BionicKey<?> key : keys ) {
+				if ( key == null ) {
+					continue;
+				}
+				Meta provider = lookup( node, key );
+				if ( provider == this ) {
+					provider = null;
+				}
+				if ( provider == deliveredFrom.get( key ) ) {
+					continue;
+				}
+				deliveredFrom.put( key, provider );
+				OnKeyChange<?>[] handlers = subscribedKeyChangedEvents.get( key );
+				if ( provider == null || handlers == null ) {
+					continue;
+				}
+				if ( key instanceof ComputedKey ) {
+					deliveredFrom.setStampAt( deliveredFrom.indexOf( key ), provider.memo( (ComputedKey<?>) key ).version );
+				}
+				KeyChange<?> event = key.changes()[0];
+				for ( OnKeyChange<?> handler : handlers ) {
+					try {
+						deliverKeyChange( handler, provider, event );
+					} catch ( Exception e ) {
+						BLog.e( e );
+						swallowed();
+					}
+				}
+			}
+		}
+
+		/**
+		 * Listen for events of the given type sent from above this meta, see {@link Bionic#notifyChildren(View, Meta, MetaEvent)}.<br>
+		 * Events are matched on {@link MetaEvent#getType()}, any number of handlers may listen to the same type.<br>
+		 *
+		 * @param type a custom event type, key changes are subscribed to with {@link #subscribeKeyChange(BionicKey, boolean, OnKeyChange)}
+		 * @param eventHandler
+		 */
+		public <E extends MetaEvent> void subscribeEvent( Class<E> type, OnMetaEvent<? super E> eventHandler ) {
+			if ( type == KeyChange.class ) {
+				throw new IllegalArgumentException( "Subscribe to key changes with subscribeKeyChange()" );
+			}
+			int idx = indexOfEventType( type );
+			if ( idx < 0 ) {
+				int size = subscribedEventTypes == null ? 0 : subscribedEventTypes.length;
+				subscribedEventTypes = subscribedEventTypes == null ? new Class<?>[1] : Arrays.copyOf( subscribedEventTypes, size + 1 );
+				subscribedEvents = subscribedEvents == null ? new OnMetaEvent<?>[1][] : Arrays.copyOf( subscribedEvents, size + 1 );
+				subscribedEventTypes[size] = type;
+				subscribedEvents[size] = new OnMetaEvent<?>[] { eventHandler };
+				eventSubscribersFor( type ).add( this );
+			} else if ( indexOf( subscribedEvents[idx], eventHandler ) < 0 ) {
+				subscribedEvents[idx] = append( subscribedEvents[idx], eventHandler );
+			}
+		}
+
+		/**
+		 * Stop calling the given handler on events of the given type, see {@link #subscribeEvent(Class, OnMetaEvent)}
+		 */
+		public <E extends MetaEvent> void unsubscribeEvent( Class<E> type, OnMetaEvent<? super E> eventHandler ) {
+			int idx = indexOfEventType( type );
+			int handlerIdx = idx < 0 ? -1 : indexOf( subscribedEvents[idx], eventHandler );
+			if ( handlerIdx < 0 ) {
+				return;
+			}
+			if ( subscribedEvents[idx].length > 1 ) {
+				subscribedEvents[idx] = remove( subscribedEvents[idx], handlerIdx );
+				return;
+			}
+			subscribedEventTypes = remove( subscribedEventTypes, idx );
+			subscribedEvents = remove( subscribedEvents, idx );
+			eventSubscribersFor( type ).remove( this );
+		}
+
+		private int indexOfEventType( Class<?> type ) {
+			return subscribedEventTypes == null ? -1 : indexOf( subscribedEventTypes, type );
+		}
+
+		/**
+		 * Listen for events of the given type sent upward from below this meta, see {@link Bionic#notifyAncestors(View, Meta, MetaEvent)}.<br>
+		 * The nearest listening ancestor hears the event first, every handler of that ancestor hears it, and if any returns false it is consumed so no ancestor further up does.<br>
+		 *
+		 * @param type a custom event type
+		 * @param eventHandler
+		 */
+		public <E extends MetaEvent> void subscribeDescendantEvent( Class<E> type, OnMetaEvent<? super E> eventHandler ) {
+			if ( type == KeyChange.class ) {
+				throw new IllegalArgumentException( "Key changes only flow downward" );
+			}
+			int idx = indexOfDescendantEventType( type );
+			if ( idx < 0 ) {
+				int size = descendantEventTypes == null ? 0 : descendantEventTypes.length;
+				descendantEventTypes = descendantEventTypes == null ? new Class<?>[1] : Arrays.copyOf( descendantEventTypes, size + 1 );
+				descendantEvents = descendantEvents == null ? new OnMetaEvent<?>[1][] : Arrays.copyOf( descendantEvents, size + 1 );
+				descendantEventTypes[size] = type;
+				descendantEvents[size] = new OnMetaEvent<?>[] { eventHandler };
+				ancestorSubscriptions++;
+			} else if ( indexOf( descendantEvents[idx], eventHandler ) < 0 ) {
+				descendantEvents[idx] = append( descendantEvents[idx], eventHandler );
+			}
+		}
+
+		/**
+		 * Stop calling the given handler on events from below, see {@link #subscribeDescendantEvent(Class, OnMetaEvent)}
+		 */
+		public <E extends MetaEvent> void unsubscribeDescendantEvent( Class<E> type, OnMetaEvent<? super E> eventHandler ) {
+			int idx = indexOfDescendantEventType( type );
+			int handlerIdx = idx < 0 ? -1 : indexOf( descendantEvents[idx], eventHandler );
+			if ( handlerIdx < 0 ) {
+				return;
+			}
+			if ( descendantEvents[idx].length > 1 ) {
+				descendantEvents[idx] = remove( descendantEvents[idx], handlerIdx );
+				return;
+			}
+			descendantEventTypes = remove( descendantEventTypes, idx );
+			descendantEvents = remove( descendantEvents, idx );
+			ancestorSubscriptions++;
+		}
+
+		private int indexOfDescendantEventType( Class<?> type ) {
+			return descendantEventTypes == null ? -1 : indexOf( descendantEventTypes, type );
+		}
+
+		/**
+		 * The metas above this meta's node listening for events of the given type from below, nearest first.<br>
+		 * Memoized per type until the hierarchy or any such subscription changes, so repeated events cost no walk.
+		 * Untracked nodes are never cached, see {@link #resolve(BionicKey)}.<br>
+		 */
+		private Meta[] ancestorRoute( Class<?> type ) throws Exception {
+			Object node = getNode( this );
+			if ( !tree.isTracked( node ) ) {
+				return walkAncestors( node, type );
+			}
+
+			int idx = ancestorRouteTypes == null ? -1 : indexOf( ancestorRouteTypes, type );
+			AncestorRoute route = idx < 0 ? null : ancestorRoutes[idx];
+			if ( route != null && route.subscriptions == ancestorSubscriptions && route.placement == placement
+					&& route.hierarchyVersion == tree.hierarchyVersion ) {
+				return route.metas;
+			}
+
+			if ( route == null ) {
+				route = new AncestorRoute();
+				ancestorRouteTypes = ancestorRouteTypes == null ? new Class<?>[] { type } : append( ancestorRouteTypes, type );
+				ancestorRoutes = ancestorRoutes == null ? new AncestorRoute[] { route } : append( ancestorRoutes, route );
+			}
+			route.metas = walkAncestors( node, type );
+			route.subscriptions = ancestorSubscriptions;
+			route.placement = placement;
+			route.hierarchyVersion = tree.hierarchyVersion;
+			return route.metas;
+		}
+
+		/**
+		 * Call every one of this meta's handlers of events from below, as {@link #onEvent(Meta, MetaEvent)} does downward
+		 *
+		 * @return false if any handler consumed the event, it then bubbles no further
+		 */
+		private boolean onDescendantEvent( Meta metaSend, MetaEvent event ) {
+			int idx = indexOfDescendantEventType( event.getType() );
+			if ( idx < 0 ) {
+				return true;
+			}
+			boolean propagate = true;
+			for ( OnMetaEvent<?> handler : descendantEvents[idx] ) {
+				try {
+					propagate &= deliverEvent( handler, metaSend, event );
+				} catch ( Exception e ) {
+					BLog.e( e );
+					swallowed();
+				}
+			}
+			return propagate;
+		}
+
+		/**
+		 * Call the handler, timing it if metrics are set
+		 *
+		 * @return the handler's result
+		 */
+		@SuppressWarnings( "unchecked" ) // handlers are only ever indexed under the key they were subscribed to
+		private boolean deliverKeyChange( OnKeyChange<?> handler, Meta metaSend, KeyChange<?> event ) {
+			OnKeyChange<BionicKey<?>> typed = (OnKeyChange<BionicKey<?>>) handler;
+			KeyChange<BionicKey<?>> change = (KeyChange<BionicKey<?>>) event;
+			BionicMetrics metrics = Bionic.this.metrics; // a handler may swap it, end what we began
+			if ( metrics == null ) {
+				return typed.handleEvent( metaSend, this, change );
+			}
+			long start = metrics.beginHandler();
+			try {
+				return typed.handleEvent( metaSend, this, change );
+			} finally {
+				metrics.endHandler( start );
+			}
+		}
+
+		@SuppressWarnings( "unchecked" ) // handlers are only ever indexed under the event type they were subscribed to
+		private boolean deliverEvent( OnMetaEvent<?> handler, Meta metaSend, MetaEvent event ) {
+			OnMetaEvent<MetaEvent> typed = (OnMetaEvent<MetaEvent>) handler;
+			BionicMetrics metrics = Bionic.this.metrics; // a handler may swap it, end what we began
+			if ( metrics == null ) {
+				return typed.handleEvent( metaSend, this, event );
+			}
+			long start = metrics.beginHandler();
+			try {
+				return typed.handleEvent( metaSend, this, event );
+			} finally {
+				metrics.endHandler( start );
+			}
+		}
+
+		/**
+		 * Find the nearest meta at or above this meta's view providing the given key.<br>
+		 * Resolutions, misses included, are memoized per key and remain valid until the key is newly provided at or above
+		 * this meta, see {@link Bionic#invalidateResolutions(Meta, BionicKey)}, or this meta's node moves, see {@link BionicTree#hierarchyChanged(Object, boolean)}. Moves elsewhere leave them be,
+		 * only a tree calling {@link BionicTree#hierarchyChanged()} drops every meta's, each then walks again on its next lookup.
+		 * Untracked nodes, such as detached views, can be rearranged without notice so they are never cached.<br>
+		 *
+		 * @param key
+		 * @return null if no ancestor provides the key
+		 */
+		private Meta resolve( BionicKey<?> key ) throws Exception {
+			Object node = getNode( this );
+			if ( !tree.isTracked( node ) ) {
+				return walk( node, key );
+			}
+
+			Resolution res = resolved == null ? null : resolved.get( key );
+			if ( res != null && !res.stale && res.placement == placement
+					&& res.hierarchyVersion == tree.hierarchyVersion ) {
+				return res.provider;
+			}
+
+			// misses are cached too, any meta above starting to provide the key marks them stale and retries the walk
+			Meta provider = walk( node, key );
+			if ( res == null ) {
+				if ( resolved == null ) {
+					resolved = new KeyTable<>();
+				}
+				res = new Resolution();
+				resolved.put( key, res );
+			}
+			res.provider = provider;
+			res.stale = false;
+			res.placement = placement;
+			res.hierarchyVersion = tree.hierarchyVersion;
+			return provider;
+		}
+
+		/**
+		 * Call this meta's handlers of the event
+		 *
+		 * @return false if a handler consumed it, so the metas below never hear of it
+		 */
+		private boolean onEvent( Meta metaSend, MetaEvent event ) {
+			boolean propagate = true;
+			int idx = indexOfEventType( event.getType() );
+			if ( idx >= 0 ) {
+				for ( OnMetaEvent<?> handler : subscribedEvents[idx] ) {
+					try {
+						propagate &= deliverEvent( handler, metaSend, event );
+					} catch ( Exception e ) {
+						BLog.e( e );
+						swallowed();
+					}
+				}
+			}
+			return propagate;
+		}
+
+		/**
+		 * Deliver several key changes from the same sender in one pass.
+		 *
+		 * @param events
+		 * @param mask bit i set while events[i] is still propagating down this branch
+		 * @return the events still propagating below this meta, 0 to skip its subtree, see {@link Bionic#dispatch}
+		 */
+		private long onKeyChanges( Meta metaSend, KeyChange<?>[] events, long mask ) {
+			if ( ( suspended > 0 || deferWhileHidden ) && isDeferring() ) {
+				defer( metaSend, events, mask );
+				return 0L; // delivered below once the latest of each is released, see flushDeferred()
+			}
+			for ( int i = 0; i < events.length; i++ ) {
+				if ( ( mask & ( 1L << i ) ) == 0 ) {
+					continue;
+				}
+				KeyChange<?> event = events[i];
+
+				// Don't deliver key events to metas that overwrite the key
+				// also do not propagate beyond this meta since the children should
+				// not care about key changes above this meta (since it controls this key)
+				// the same goes for changes its handlers consumed
+				if ( hasLocal( event.getKey() ) || !onKeyChange( metaSend, event ) ) {
+					mask &= ~( 1L << i );
+				}
+			}
+			return mask;
+		}
+
+		/**
+		 * Call this meta's handlers of the event's key
+		 *
+		 * @return false if a handler consumed the change, so the metas below never hear of it
+		 */
+		private boolean onKeyChange( Meta metaSend, KeyChange<?> event ) {
+			boolean propagate = true;
+			OnKeyChange<?>[] handlers = subscribedKeyChangedEvents == null ? null : subscribedKeyChangedEvents.get( event.getKey() );
+			if ( handlers != null ) {
+				if ( event.getKey() instanceof ComputedKey ) {
+					metaSend = computedChange( event.getKey() );
+					if ( metaSend == null ) {
+						return true;
+					}
+				}
+				deliveredFrom.put( event.getKey(), metaSend );
+				for ( OnKeyChange<?> handler : handlers ) {
+					try {
+						propagate &= deliverKeyChange( handler, metaSend, event );
+					} catch ( Exception e ) {
+						BLog.e( e );
+						swallowed();
+					}
+				}
+			}
+			return propagate;
+		}
+
+		/**
+		 * A dependency changed somewhere above, but maybe not as seen from here, such as when a meta in between shadows it.
+		 *
+		 * @return the computed key's provider, null if its value did not change for this meta since last delivered
+		 */
+		private Meta computedChange( BionicKey<?> key ) {
+			try {
+				Meta provider = lookup( getNode( this ), key );
+				int idx = deliveredFrom.indexOf( key );
+				long version = provider == null ? 0L : provider.memo( (ComputedKey<?>) key ).version;
+				if ( provider == null || deliveredFrom.stampAt( idx ) == version ) {
+					return null;
+				}
+				deliveredFrom.setStampAt( idx, version );
+				return provider;
+			} catch ( Exception e ) {
+				BLog.e( e );
+				swallowed();
+			}
+			return null;
+		}
+
+		/**
+		 * Hold back key changes for this meta and everything below it while its node is hidden,
+		 * then deliver the latest of each once it shows again.<br>
+		 * Meant for the roots of subtrees that spend time out of sight, such as tabs and pages,
+		 * whose handlers would otherwise bind views nobody sees, see {@link BionicTree#isVisible(Object)}.<br>
+		 *
+		 * @param defer
+		 */
+		public void setDeferWhileHidden( boolean defer ) {
+			deferWhileHidden = defer;
+			if ( !defer ) {
+				flushDeferred();
+			}
+		}
+
+		/**
+		 * Hold back key changes for this meta and everything below it until the matching {@link #resumeDelivery()},
+		 * for subtrees that are out of sight in ways the tree cannot tell, such as offscreen pages.<br>
+		 * Calls nest.
+		 */
+		public void suspendDelivery() {
+			suspended++;
+		}
+
+		/**
+		 * Deliver the latest of each key change held back since {@link #suspendDelivery()}
+		 */
+		public void resumeDelivery() {
+			if ( suspended == 0 ) {
+				throw new IllegalStateException( "resumeDelivery() without suspendDelivery()" );
+			}
+			if ( --suspended == 0 ) {
+				flushDeferred();
+			}
+		}
+
+		private boolean isDeferring() {
+			if ( suspended > 0 ) {
+				return true;
+			}
+			Object node = getNodeOrNull( this );
+			return node != null && !tree.isVisible( node );
+		}
+
+		private void defer( Meta metaSend, KeyChange<?>[] events, long mask ) {
+			if ( deferred == null ) {
+				deferred = new KeyTable<>();
+			}
+			for ( int i = 0; i < events.length; i++ ) {
+				if ( ( mask & ( 1L << i ) ) != 0 ) {
+					deferred.put( events[i].getKey(), metaSend ); // values are read at delivery so only the latest sender matters
+				}
+			}
+			if ( suspended == 0 ) {
+				watchVisibility();
+			}
+		}
+
+		private void watchVisibility() {
+			Object node = getNodeOrNull( this );
+			if ( watchingVisibility || node == null ) {
+				return;
+			}
+			if ( flushDeferred == null ) {
+				flushDeferred = new Runnable() {
+					@Override
+					public void run() {
+						watchingVisibility = false;
+						flushDeferred();
+					}
+				};
+			}
+			watchingVisibility = true;
+			tree.watchVisibility( node, flushDeferred );
+		}
+
+		private void flushDeferred() {
+			if ( deferred == null || deferred.size() == 0 ) {
+				return;
+			}
+			if ( isDeferring() && ( suspended > 0 || deferWhileHidden ) ) {
+				if ( suspended == 0 ) {
+					watchVisibility(); // shown briefly, or not yet
+				}
+				return;
+			}
+
+			// copy out first, handlers may put and defer again while we deliver
+			int capacity = deferred.capacity();
+			BionicKey<?>[] keys = new BionicKey<?>[capacity];
+			Meta[] senders = new Meta[capacity];
+			for ( int slot = 0; slot < capacity; slot++ ) {
+				keys[slot] = deferred.keyAt( slot );
+				senders[slot] = deferred.valueAt( slot );
+			}
+			deferred.clear();
+
+			Object node = getNodeOrNull( this );
+			if ( node == null ) {
+				return;
+			}
+			for ( int i = 0; i < capacity; i++ ) {
+				BionicKey<?> key = keys[i];
+				if ( key == null || hasLocal( key ) ) {
+					continue; // this meta has since started providing the key itself
+				}
+				try {
+					KeyChange<?>[] changes = key.changes(); // computed dependents were deferred as keys of their own, see defer()
+					if ( onKeyChange( senders[i], changes[0] ) ) {
+						Bionic.this.notifyNodeChildren( node, senders[i], changes );
+					}
+				} catch ( Exception e ) {
+					BLog.e( e );
+					swallowed();
+				}
+			}
+		}
+
+		private void notifyChildren( Meta metaSend, MetaEvent event ) throws Exception {
+			Bionic.this.notifyNodeChildren( getNode( this ), metaSend, event );
+		}
+
+	}
+
+	/**
+	 * A conflating stream of a key's values as seen from one meta, see {@link Meta#observe(BionicKey)}.<br>
+	 * While observed it holds a single key subscription and at most one delivery posted to the tree,
+	 * so a fast producer costs one delivery per frame no matter how many values it puts in between.
+	 * Intermediate values are dropped, each observer hears every value it has not heard yet when the delivery runs,
+	 * including the current one right after subscribing if an ancestor provides the key.<br>
+	 * Subscribe and unsubscribe on the tree's owner thread.<br>
+	 *
+	 * @param <T>
+	 */
+	public final class KeyStream<T> {
+		private final Meta meta;
+		private final BionicKey<T> key;
+		private KeyObserver<? super T>[] observers = noObservers(); // copy on write, deliver() iterates them as is
+		private long[] heard = new long[0]; // parallel with observers, the version each last heard
+		private boolean scheduled = false;
+		private boolean watchingDetach = false;
+
+		private final OnKeyChange<BionicKey<T>> onChange = new OnKeyChange<BionicKey<T>>() {
+			@Override
+			public boolean handleEvent( Meta metaSend, Meta metaRecv, KeyChange<BionicKey<T>> event ) {
+				schedule();
+				return true;
+			}
+		};
+
+		private final Runnable deliver = new Runnable() {
+			@Override
+			public void run() {
+				scheduled = false;
+				deliver();
+			}
+		};
+
+		private final Runnable detached = new Runnable() {
+			@Override
+			public void run() {
+				watchingDetach = false;
+				unsubscribeAll();
+			}
+		};
+
+		private KeyStream( Meta meta, BionicKey<T> key ) {
+			this.meta = meta;
+			this.key = key;
+		}
+
+		/**
+		 * Subscribing the same observer twice has no further effect
+		 */
+		public void subscribe( KeyObserver<? super T> observer ) {
+			if ( indexOf( observers, observer ) >= 0 ) {
+				return;
+			}
+			if ( observers.length == 0 ) {
+				meta.subscribeKeyChange( key, false, onChange );
+				Object node = getNodeOrNull( meta );
+				if ( !watchingDetach && node != null ) {
+					watchingDetach = true;
+					tree.watchDetach( node, detached );
+				}
+			}
+			observers = append( observers, observer );
+			heard = Arrays.copyOf( heard, observers.length ); // 0 until it hears a value, the version of no value at all
+			schedule();
+		}
+
+		public void unsubscribe( KeyObserver<? super T> observer ) {
+			int idx = indexOf( observers, observer );
+			if ( idx < 0 ) {
+				return;
+			}
+			if ( observers.length == 1 ) {
+				unsubscribeAll();
+				return;
+			}
+			observers = remove( observers, idx );
+			long[] remaining = new long[heard.length - 1];
+			System.arraycopy( heard, 0, remaining, 0, idx );
+			System.arraycopy( heard, idx + 1, remaining, idx, remaining.length - idx );
+			heard = remaining;
+		}
+
+		private void unsubscribeAll() {
+			if ( observers.length > 0 ) {
+				meta.unsubscribeKeyChange( key, onChange );
+				observers = noObservers();
+				heard = new long[0];
+			}
+		}
+
+		private void onLocalPut() {
+			if ( observers.length > 0 ) {
+				schedule();
+			}
+		}
+
+		private void schedule() {
+			if ( !scheduled ) {
+				scheduled = true;
+				tree.post( deliver );
+			}
+		}
+
+		private void deliver() {
+			KeyObserver<? super T>[] observers = this.observers;
+			long[] heard = this.heard;
+			long version = meta.getVersion( key );
+			boolean read = false;
+			T value = null;
+			for ( int i = 0; i < observers.length; i++ ) {
+				if ( heard[i] == version ) {
+					continue;
+				}
+				heard[i] = version;
+				if ( !read ) {
+					value = meta.getValue( key, null ); // read once, and only if someone has not heard it yet
+					read = true;
+				}
+				try {
+					observers[i].onValue( value );
+				} catch ( Exception e ) {
+					BLog.e( e );
+					swallowed();
+				}
+			}
+		}
+	}
+
+	private static final KeyObserver<?>[] NO_OBSERVERS = new KeyObserver<?>[0];
+
+	@SuppressWarnings( "unchecked" ) // empty, it holds no observer of any type
+	private static <T> KeyObserver<T>[] noObservers() {
+		return (KeyObserver<T>[]) NO_OBSERVERS;
+	}
+
+	/**
+	 * Weakly held metas subscribed to a single key or event type.<br>
+	 * Cleared references are compacted away while iterating, see {@link #route(Object, SubscriberIndex, Set)}.
+	 */
+	private static final class SubscriberIndex {
+		@SuppressWarnings( "unchecked" )
+		private WeakReference<Meta>[] refs = (WeakReference<Meta>[]) new WeakReference<?>[2];
+		private int size = 0;
+
+		private void add( Meta meta ) {
+			if ( size == refs.length ) {
+				refs = Arrays.copyOf( refs, size * 2 );
+			}
+			refs[size++] = new WeakReference<>( meta );
+		}
+
+		private void remove( Meta meta ) {
+			for ( int i = 0; i < size; i++ ) {
+				if ( refs[i].get() == meta ) {
+					System.arraycopy( refs, i + 1, refs, i, size - i - 1 );
+					refs[--size] = null;
+					return;
+				}
+			}
+		}
+	}
+
+	private int ancestorSubscriptions = 0; // bumped whenever a meta starts or stops listening for events from below, see Meta#ancestorRoute
+	private static final Meta[] NO_METAS = new Meta[0];
+
+	// Metas subscribed to each key, kept per Bionic so a scope only ever routes among its own metas, see route()
+	private final KeyTable<SubscriberIndex> keySubscribers = new KeyTable<>();
+
+	private SubscriberIndex keySubscribersFor( BionicKey<?> key ) {
+		SubscriberIndex index = keySubscribers.get( key );
+		if ( index == null ) {
+			index = new SubscriberIndex();
+			keySubscribers.put( key, index );
+		}
+		return index;
+	}
+
+	// Metas subscribed to each custom event type
+	private final IdentityHashMap<Class<?>, SubscriberIndex> eventSubscribers = new IdentityHashMap<>();
+
+	private SubscriberIndex eventSubscribersFor( Class<?> type ) {
+		SubscriberIndex index = eventSubscribers.get( type );
+		if ( index == null ) {
+			index = new SubscriberIndex();
+			eventSubscribers.put( type, index );
+		}
+		return index;
+	}
+
+	private static <T> int indexOf( T[] array, T item ) {
+		return indexOf( array, array.length, item );
+	}
+
+	/**
+	 * @param size how many of the array's items to search
+	 */
+	private static <T> int indexOf( T[] array, int size, T item ) {
+		for ( int i = 0; i < size; i++ ) {
+			if ( array[i] == item ) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private static <T> T[] append( T[] array, T item ) {
+		T[] copy = Arrays.copyOf( array, array.length + 1 );
+		copy[array.length] = item;
+		return copy;
+	}
+
+	private static <T> T[] remove( T[] array, int idx ) {
+		T[] copy = Arrays.copyOf( array, array.length - 1 );
+		System.arraycopy( array, idx + 1, copy, idx, array.length - idx - 1 );
+		return copy;
+	}
+
+	private static final class Computed {
+		private long[] versions; // of the dependencies as last validated
+		private long version; // the computed key's version, taken from versionClock whenever a dependency changes
+		private Object value;
+		private boolean valid = false;
+	}
+
+	/**
+	 * Enqueued once the node is collected, but only if the meta outlived it, see {@link Bionic#reclaim()}
+	 */
+	private static final class NodeRef extends WeakReference<Object> {
+		private final Meta meta;
+
+		private NodeRef( Object node, Meta meta, ReferenceQueue<Object> queue ) {
+			super( node, queue );
+			this.meta = meta;
+		}
+	}
+
+	private static final class AncestorRoute {
+		private Meta[] metas;
+		private int subscriptions;
+		private int placement;
+		private int hierarchyVersion;
+	}
+
+	private static final class Resolution {
+		private Meta provider; // null remembers that nobody provides the key
+		private boolean stale;
+		private int placement;
+		private int hierarchyVersion;
+	}
+
+	/**
+	 * @return may be null if no meta was attained, see {@link #attainMeta(View)}
+	 */
+	public Meta getMeta( View view ) {
+		return forView( view ).getNodeMeta( view );
+	}
+
+	public Meta attainMeta( View view ) throws Exception {
+		return forView( view ).attainNodeMeta( view );
+	}
+
+	/**
+	 * @return may be null if no meta was attained, see {@link #attainNodeMeta(Object)}
+	 */
+	public Meta getNodeMeta( Object node ) {
+		// The meta rides along on the node itself so it lives and dies with it, no global map to probe or expunge
+		return tree.getMeta( node );
+	}
+
+	public Meta attainNodeMeta( Object node ) throws Exception {
+		Meta meta = tree.getMeta( node );
+		if ( meta == null ) {
+			if ( destroyed ) {
+				throw new IllegalStateException( "This Bionic was destroyed" );
+			}
+			reclaim(); // new metas tend to come with new screens, a good time to let go of the last one
+			meta = new Meta( node );
+			tree.setMeta( node, meta );
+			attained.add( new WeakReference<>( meta ) );
+			if ( attained.size() >= pruneAttainedAt ) {
+				pruneAttainedAt = Math.max( 64, BionicMetrics.prune( attained ) * 2 );
+			}
+			if ( metrics != null ) {
+				metrics.metaCreated( meta );
+			}
+		}
+		return meta;
+	}
+
+	// Every meta attained, held weakly so metrics set later still find them, see setMetrics()
+	private final ArrayList<WeakReference<Meta>> attained = new ArrayList<>();
+	private int pruneAttainedAt = 64; // attained is compacted whenever it grows past this
+
+	// Nodes whose metas outlived them, see reclaim()
+	private final ReferenceQueue<Object> collectedNodes = new ReferenceQueue<>();
+
+	/**
+	 * Release the metas whose nodes were collected while something, such as a stale cache or a pending event,
+	 * still held on to them, so their values are freed now rather than whenever that holder lets go.<br>
+	 * A meta nothing else holds dies with its node and needs none of this.<br>
+	 * Runs on its own whenever a meta is attained, a change is dispatched or background writes are flushed,<br>
+	 * call it on the owner thread after tearing down a screen to reclaim eagerly.
+	 *
+	 * @return how many metas were released
+	 */
+	public int reclaim() {
+		int released = 0;
+		Reference<?> ref;
+		while ( ( ref = collectedNodes.poll() ) != null ) {
+			( (NodeRef) ref ).meta.release();
+			released++;
+		}
+		return released;
+	}
+
+	/**
+	 * Tear down a scope made with {@link #createScope(View)}: every meta under its root is released and
+	 * taken off its view in one pass, pending writes are dropped and no new meta can be attained.<br>
+	 * Call it on the main thread once the window is gone, such as from Activity.onDestroy().
+	 */
+	public void destroy() {
+		Object root = scopeRoot == null ? null : scopeRoot.get();
+		if ( root != null ) {
+			( (View) root ).setTag( R.id.bionic_scope, null );
+		}
+		scopeRoot = null;
+		destroyNode( root );
+	}
+
+	/**
+	 * Node flavor of {@link #destroy()} for Bionics over any tree
+	 *
+	 * @param root may be null to only stop this Bionic
+	 */
+	public void destroyNode( Object root ) {
+		destroyed = true;
+		synchronized ( pendingLock ) {
+			pending.clear();
+		}
+		if ( root != null ) {
+			releaseSubtree( root );
+		}
+		reclaim();
+	}
+
+	private void releaseSubtree( Object root ) {
+		DispatchStack stack = obtainDispatchStack(); // walked like a dispatch so deep trees cannot overflow
+		try {
+			releaseNode( root );
+			stack.push( root, 0L );
+			while ( stack.size > 0 ) {
+				int top = stack.size - 1;
+				if ( stack.nextChild[top] >= tree.getChildCount( stack.nodes[top] ) ) {
+					stack.pop(); // counted live, handlers may remove children while they are walked
+					continue;
+				}
+				Object child = tree.getChildAt( stack.nodes[top], stack.nextChild[top]++ );
+				releaseNode( child );
+				stack.push( child, 0L );
+			}
+		} finally {
+			stack.clear();
+			dispatchDepth--;
+		}
+	}
+
+	private void releaseNode( Object node ) {
+		Meta meta = tree.getMeta( node );
+		if ( meta != null ) {
+			meta.release();
+			tree.setMeta( node, null );
+		}
+	}
+
+	private Object getNodeOrNull( Meta meta ) {
+		return meta.nodeRef.get();
+	}
+
+	/**
+	 * @return never null
+	 */
+	private Object getNode( Meta meta ) throws Exception {
+		Object node = meta.nodeRef.get(); // should never be null since a meta should not exist outside the scope of the node
+		if ( node == null ) {
+			throw new IllegalStateException( "No View associated with this Meta!" );
+		}
+		return node;
+	}
+
+	/**
+	 * See {@link BionicTree#nodeRemoved(Object)}
+	 */
+	void onNodeRemoved( Object node ) {
+		Meta meta = tree.getMeta( node );
+		if ( meta != null ) {
+			meta.placement++;
+		}
+	}
+
+	/**
+	 * The meta started providing the key, so the lookups of it and of its dependents cached at or below
+	 * the meta's node are stale. Those cached anywhere else are left be, see {@link Meta#resolve(BionicKey)}.<br>
+	 * A null key means the meta stopped providing anything, only the lookups it answered are stale then.
+	 */
+	private void invalidateResolutions( Meta meta, BionicKey<?> key ) {
+		Object root = getNodeOrNull( meta );
+		if ( root == null ) {
+			return; // collected along with everything below it
+		}
+		KeyChange<?>[] cascade = key == null ? null : key.cascade();
+		DispatchStack stack = obtainDispatchStack(); // walked like a dispatch so deep trees cannot overflow
+		try {
+			invalidateNode( root, meta, cascade );
+			stack.push( root, 0L );
+			while ( stack.size > 0 ) {
+				int top = stack.size - 1;
+				if ( stack.nextChild[top] >= tree.getChildCount( stack.nodes[top] ) ) {
+					stack.pop();
+					continue;
+				}
+				Object child = tree.getChildAt( stack.nodes[top], stack.nextChild[top]++ );
+				invalidateNode( child, meta, cascade );
+				stack.push( child, 0L );
+			}
+		} finally {
+			stack.clear();
+			dispatchDepth--;
+		}
+	}
+
+	private void invalidateNode( Object node, Meta provider, KeyChange<?>[] cascade ) {
+		Meta meta = tree.getMeta( node );
+		KeyTable<Resolution> resolved = meta == null ? null : meta.resolved;
+		if ( resolved == null ) {
+			return;
+		}
+		if ( cascade == null ) {
+			for ( int slot = 0; slot < resolved.capacity(); slot++ ) {
+				Resolution res = resolved.valueAt( slot );
+				if ( res != null && res.provider == provider ) {
+					res.stale = true;
+				}
+			}
+			return;
+		}
+		for ( KeyChange<?> change : cascade ) {
+			Resolution res = resolved.get( change.getKey() );
+			if ( res != null ) {
+				res.stale = true;
+			}
+		}
+	}
+
+	/**
+	 * See {@link BionicTree#hierarchyChanged(Object, boolean)}
+	 */
+	void onNodeMoved( Object node, boolean subtree ) {
+		revalidateNode( node );
+		if ( !subtree ) {
+			return;
+		}
+		DispatchStack stack = obtainDispatchStack(); // walked like a dispatch so deep trees cannot overflow
+		try {
+			stack.push( node, 0L );
+			while ( stack.size > 0 ) {
+				int top = stack.size - 1;
+				if ( stack.nextChild[top] >= tree.getChildCount( stack.nodes[top] ) ) {
+					stack.pop(); // counted live, handlers may rearrange the subtree while it is walked
+					continue;
+				}
+				Object child = tree.getChildAt( stack.nodes[top], stack.nextChild[top]++ );
+				revalidateNode( child );
+				stack.push( child, 0L );
+			}
+		} finally {
+			stack.clear();
+			dispatchDepth--;
+		}
+	}
+
+	private void revalidateNode( Object node ) {
+		Meta meta = tree.getMeta( node );
+		if ( meta != null ) {
+			meta.placement++;
+			try {
+				meta.revalidate();
+			} catch ( Exception e ) {
+				BLog.e( e );
+				swallowed();
+			}
+		}
+	}
+
+	public void notifyChildren( View view, Meta metaSend, MetaEvent event ) throws Exception {
+		forView( view ).notifyNodeChildren( view, metaSend, event );
+	}
+
+	public void notifyNodeChildren( Object node, Meta metaSend, MetaEvent event ) throws Exception {
+		if ( event instanceof KeyChange ) {
+			KeyChange<?> change = (KeyChange<?>) event;
+			BionicKey<?> key = change.getKey();
+			KeyChange<?>[] changes = key.changes();
+			notifyNodeChildren( node, metaSend, changes[0] == change ? changes : new KeyChange<?>[] { change } );
+			return;
+		}
+
+		Set<Object> route = route( node, eventSubscribers.get( event.getType() ), null );
+		if ( route == null ) {
+			return; // nobody below is listening
+		}
+		BionicMetrics metrics = this.metrics;
+		if ( metrics != null ) {
+			metrics.beginDispatch();
+		}
+		try {
+			dispatch( node, metaSend, event, null, 1L, route );
+		} finally {
+			route.clear();
+			routeDepth--;
+			if ( metrics != null ) {
+				metrics.endDispatch();
+			}
+		}
+	}
+
+	/**
+	 * Send an event upward to the metas above the given view listening for its type, nearest first,
+	 * see {@link Meta#subscribeDescendantEvent(Class, OnMetaEvent)}.<br>
+	 * Costs one walk up the view's ancestors, cached while nothing moves, and never visits another subtree.<br>
+	 *
+	 * @param view
+	 * @param metaSend
+	 * @param event
+	 * @return true if an ancestor consumed the event
+	 */
+	public boolean notifyAncestors( View view, Meta metaSend, MetaEvent event ) throws Exception {
+		return forView( view ).notifyNodeAncestors( view, metaSend, event );
+	}
+
+	/**
+	 * Node flavor of {@link #notifyAncestors(View, Meta, MetaEvent)}
+	 */
+	public boolean notifyNodeAncestors( Object node, Meta metaSend, MetaEvent event ) throws Exception {
+		Meta meta = tree.getMeta( node );
+		Meta[] route = meta != null ? meta.ancestorRoute( event.getType() ) : walkAncestors( node, event.getType() );
+		for ( Meta recv : route ) {
+			if ( !recv.onDescendantEvent( metaSend, event ) ) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Uncached walk from the given node's parent up, see {@link Meta#ancestorRoute(Class)}
+	 */
+	private Meta[] walkAncestors( Object node, Class<?> type ) {
+		ArrayList<Meta> metas = null;
+		Object ptr = tree.getParent( node );
+		while ( ptr != null ) {
+			Meta meta = tree.getMeta( ptr );
+			if ( meta != null && meta.indexOfDescendantEventType( type ) >= 0 ) {
+				if ( metas == null ) {
+					metas = new ArrayList<>();
+				}
+				metas.add( meta );
+			}
+			ptr = tree.getParent( ptr );
+		}
+		return metas == null ? NO_METAS : metas.toArray( new Meta[metas.size()] );
+	}
+
+	/**
+	 * Deliver up to 64 key changes from the same sender in a single traversal.
+	 */
+	private void notifyNodeChildren( Object node, Meta metaSend, KeyChange<?>[] events ) throws Exception {
+		notifyNodeChildren( node, metaSend, events, events.length );
+	}
+
+	/**
+	 * @param count how many of the events to deliver, the rest of the array is ignored
+	 */
+	private void notifyNodeChildren( Object node, Meta metaSend, KeyChange<?>[] events, int count ) throws Exception {
+		Set<Object> route = null;
+		for ( int i = 0; i < count; i++ ) {
+			route = route( node, keySubscribers.get( events[i].getKey() ), route );
+		}
+		if ( route == null ) {
+			return; // nobody below is listening
+		}
+		BionicMetrics metrics = this.metrics; // may be swapped by a handler, end what we began
+		if ( metrics != null ) {
+			metrics.beginDispatch();
+		}
+		try {
+			dispatch( node, metaSend, null, events, -1L >>> ( 64 - count ), route );
+		} finally {
+			route.clear();
+			routeDepth--;
+			if ( metrics != null ) {
+				metrics.endDispatch();
+			}
+		}
+	}
+
+	/**
+	 * Depth first delivery to the metas below the given node, over an explicit stack so deep trees cannot overflow the thread's.<br>
+	 * Only children on the route are visited, see {@link #route(Object, SubscriberIndex, Set)}.
+	 * Each meta prunes its own subtree: key changes it shadows or its handlers consume drop out of the mask below it,
+	 * a consumed custom event skips it entirely and {@link #stopDispatch()} ends the traversal.<br>
+	 * Handler exceptions are caught around each handler, never around a level.<br>
+	 *
+	 * @param event the custom event, null when delivering key changes
+	 * @param events the key changes, null when delivering a custom event
+	 * @param mask bit i set while events[i] is still propagating, any non zero mask for a custom event
+	 */
+	private void dispatch( Object root, Meta metaSend, MetaEvent event, KeyChange<?>[] events, long mask, Set<Object> route ) {
+		if ( dispatchDepth == 0 ) {
+			reclaim(); // screens that only ever update still let go of the ones torn down
+		}
+		DispatchStack stack = obtainDispatchStack();
+		stack.dispatching = true;
+		try {
+			stack.push( root, mask );
+			while ( stack.size > 0 && !stack.stopped ) {
+				int top = stack.size - 1;
+				if ( stack.nextChild[top] >= tree.getChildCount( stack.nodes[top] ) ) {
+					stack.pop(); // counted live, handlers may remove children while they are walked
+					continue;
+				}
+				Object child = tree.getChildAt( stack.nodes[top], stack.nextChild[top]++ );
+				if ( !route.contains( child ) ) {
+					continue;
+				}
+				BionicMetrics metrics = this.metrics; // may be swapped by a handler
+				if ( metrics != null ) {
+					metrics.visitNode();
+				}
+				long childMask = stack.masks[top];
+				Meta meta = tree.getMeta( child );
+				if ( meta != null ) {
+					if ( metrics != null ) {
+						metrics.visitMeta();
+					}
+					if ( events != null ) {
+						childMask = meta.onKeyChanges( metaSend, events, childMask );
+					} else if ( !meta.onEvent( metaSend, event ) ) {
+						childMask = 0L;
+					}
+				}
+				if ( childMask != 0 ) {
+					stack.push( child, childMask );
+				}
+			}
+		} finally {
+			stack.clear();
+			dispatchDepth--;
+		}
+	}
+
+	/**
+	 * Called from a handler, end the delivery it is part of once the current meta's handlers are done,
+	 * no other meta below or beside it hears of the event.<br>
+	 * Returning false from a handler prunes only the subtree below its meta.
+	 */
+	public void stopDispatch() {
+		for ( int depth = dispatchDepth - 1; depth >= 0; depth-- ) {
+			DispatchStack stack = dispatchPool.get( depth );
+			if ( stack.dispatching ) { // skip the walks of moved or released subtrees, see onNodeMoved
+				stack.stopped = true;
+				return;
+			}
+		}
+	}
+
+	// The path from a dispatch's or a subtree walk's root down to the node being visited, parallel arrays grown once and reused
+	private static final class DispatchStack {
+		Object[] nodes = new Object[16];
+		int[] nextChild = new int[16];
+		long[] masks = new long[16];
+		int size = 0;
+		boolean stopped = false;
+		boolean dispatching = false; // false while walking for onNodeMoved or releaseSubtree, which stopDispatch() does not end
+
+		void push( Object node, long mask ) {
+			if ( size == nodes.length ) {
+				nodes = Arrays.copyOf( nodes, size * 2 );
+				nextChild = Arrays.copyOf( nextChild, size * 2 );
+				masks = Arrays.copyOf( masks, size * 2 );
+			}
+			nodes[size] = node;
+			nextChild[size] = 0;
+			masks[size] = mask;
+			size++;
+		}
+
+		void pop() {
+			nodes[--size] = null; // do not hold on to views past the dispatch
+		}
+
+		void clear() {
+			while ( size > 0 ) {
+				pop();
+			}
+			stopped = false;
+			dispatching = false;
+		}
+	}
+
+	// Handlers may dispatch again while a dispatch is underway, so stacks are pooled per nesting level like routes
+	private final ArrayList<DispatchStack> dispatchPool = new ArrayList<>();
+	private int dispatchDepth = 0;
+
+	private DispatchStack obtainDispatchStack() {
+		if ( dispatchDepth == dispatchPool.size() ) {
+			dispatchPool.add( new DispatchStack() );
+		}
+		return dispatchPool.get( dispatchDepth++ );
+	}
+
+	/**
+	 * Mark every node between the given root and the metas in the given index.<br>
+	 * Dispatch then only descends into marked children, so subtrees nobody listens in are never visited.
+	 * Shadowing metas on a marked path are still visited and still block propagation.
+	 * Each subscriber walks up only until it meets a node an earlier one already walked, so ancestry shared
+	 * by many subscribers, inside or outside the root, is walked once per call.<br>
+	 *
+	 * @param index subscribers of a key or event type, may be null
+	 * @param route set to add to, may be null
+	 * @return null if no subscriber lives below the root, otherwise a pooled set released by the caller
+	 */
+	private Set<Object> route( Object root, SubscriberIndex index, Set<Object> route ) throws Exception {
+		if ( index == null || tree.getChildCount( root ) == 0 ) {
+			return route;
+		}
+
+		int live = 0;
+		int steps = 0;
+		try {
+			for ( int i = 0; i < index.size; i++ ) {
+				WeakReference<Meta> ref = index.refs[i];
+				Meta meta = ref.get();
+				Object node = meta == null ? null : getNodeOrNull( meta );
+				if ( node == null ) {
+					continue; // compacted away below
+				}
+				index.refs[live++] = ref;
+
+				Object ptr = node;
+				while ( ptr != null && ptr != root && ( route == null || !route.contains( ptr ) ) && !routeMisses.contains( ptr ) ) {
+					routePath.add( ptr );
+					ptr = tree.getParent( ptr );
+				}
+				steps += routePath.size();
+				if ( routePath.isEmpty() ) {
+					continue; // the root itself, or already known
+				}
+				if ( ptr == root || ( ptr != null && route != null && route.contains( ptr ) ) ) {
+					if ( route == null ) {
+						route = obtainRoute();
+					}
+					route.addAll( routePath );
+				} else {
+					routeMisses.addAll( routePath ); // leads elsewhere, later subscribers stop here
+				}
+				routePath.clear();
+			}
+		} finally {
+			routePath.clear();
+			routeMisses.clear();
+		}
+		Arrays.fill( index.refs, live, index.size, null );
+		index.size = live;
+		if ( metrics != null ) {
+			metrics.routed( steps );
+		}
+		return route;
+	}
+
+	// Scratch for route(), which calls nothing that could route again
+	private final ArrayList<Object> routePath = new ArrayList<>();
+	private final Set<Object> routeMisses = Collections.newSetFromMap( new IdentityHashMap<Object, Boolean>() );
+
+	// Handlers may put values while a dispatch is underway, so route sets are pooled per nesting level
+	private final ArrayList<Set<Object>> routePool = new ArrayList<>();
+	private int routeDepth = 0;
+
+	private Set<Object> obtainRoute() {
+		if ( routeDepth == routePool.size() ) {
+			routePool.add( Collections.newSetFromMap( new IdentityHashMap<Object, Boolean>() ) );
+		}
+		return routePool.get( routeDepth++ );
+	}
+
+	/**
+	 * Find the nearest meta at or above the given node and resolve the key through its cache.
+	 */
+	private Meta lookup( Object node, BionicKey<?> key ) throws Exception {
+		int levels = 0;
+		Object ptr = node;
+		while ( ptr != null ) {
+			Meta meta = tree.getMeta( ptr );
+			if ( meta != null ) {
+				Meta provider = meta.resolve( key );
+				if ( metrics != null ) {
+					metrics.lookup( levels );
+				}
+				return provider;
+			}
+			ptr = tree.getParent( ptr );
+			levels++;
+		}
+		if ( metrics != null ) {
+			metrics.lookup( levels );
+		}
+		return null;
+	}
+
+	/**
+	 * Uncached walk from the given node up through its ancestors.
+	 */
+	private Meta walk( Object node, BionicKey<?> key ) throws Exception {
+		int levels = 0;
+		Meta provider = null;
+		Object ptr = node;
+		while ( ptr != null ) {
+			Meta meta = tree.getMeta( ptr );
+			if ( meta != null && meta.provides( key ) ) {
+				provider = meta;
+				break;
+			}
+			ptr = tree.getParent( ptr );
+			levels++;
+		}
+		if ( metrics != null ) {
+			metrics.walked( levels );
+		}
+		return provider;
+	}
+
+	/**
+	 * Get a typed value based on the given type aware key.<br>
+	 * Find the nearest ancestor to the given view containing the given key and return its value<br>
+	 * If key is not obtainable, defaultValue is returned<br>
+	 * Reads race with the owner thread's writes, so unlike puts they are owner thread only and return defaultValue elsewhere, see {@link BionicTree#isOwnerThread()}.<br>
+	 *
+	 * @param view
+	 * @param key
+	 * @param defaultValue
+	 * @param <T>
+	 * @return defaultValue off the owner thread too
+	 */
+	public <T> T getValue( View view, BionicKey<T> key, T defaultValue ) {
+		return forView( view ).getNodeValue( view, key, defaultValue );
+	}
+
+	/**
+	 * Node flavor of {@link #getValue(View, BionicKey, Object)}
+	 */
+	public <T> T getNodeValue( Object node, BionicKey<T> key, T defaultValue ) {
+		if ( !isReadThread() ) {
+			return defaultValue;
+		}
+		try {
+			if ( node == null ) {
+				throw new NullPointerException( "View cannot be null" );
+			}
+			Meta meta = lookup( node, key );
+			if ( meta != null ) {
+				return key.get( meta );
+			}
+		} catch ( Exception e ) {
+			BLog.e( e );
+			swallowed();
+		}
+		return defaultValue;
+	}
+
+	/**
+	 * The version of the key's value as seen from the given view, see {@link Meta#getVersion(BionicKey)}.<br>
+	 * Owner thread only
+	 *
+	 * @return 0 if no ancestor provides the key
+	 */
+	public long getVersion( View view, BionicKey<?> key ) {
+		return forView( view ).getNodeVersion( view, key );
+	}
+
+	/**
+	 * Node flavor of {@link #getVersion(View, BionicKey)}
+	 */
+	public long getNodeVersion( Object node, BionicKey<?> key ) {
+		if ( !isReadThread() ) {
+			return 0L;
+		}
+		try {
+			if ( node == null ) {
+				throw new NullPointerException( "View cannot be null" );
+			}
+			Meta meta = lookup( node, key );
+			if ( meta != null ) {
+				if ( key instanceof ComputedKey ) {
+					return meta.memo( (ComputedKey<?>) key ).version;
+				}
+				return meta.data.stampAt( meta.data.indexOf( key ) );
+			}
+		} catch ( Exception e ) {
+			BLog.e( e );
+			swallowed();
+		}
+		return 0L;
+	}
+
+	/**
+	 * Put a typed value based on the given type aware key<br>
+	 * Attains a Meta for the given View and associates the value.
+	 *
+	 * @param view
+	 * @param key
+	 * @param value
+	 * @param <T>
+	 * @throws Exception
+	 */
+	public <T> void putValue( View view, BionicKey<T> key, T value ) throws Exception {
+		forView( view ).putNodeValue( view, key, value );
+	}
+
+	/**
+	 * Reads are not queued like puts: the metas' tables are only ever consistent on the owner thread,
+	 * so reads from elsewhere log and return their default rather than race with a delivery in progress.
+	 */
+	private boolean isReadThread() {
+		if ( tree.isOwnerThread() ) {
+			return true;
+		}
+		BLog.e( new IllegalStateException( "Bionic values can only be read on the owner thread, see BionicTree#isOwnerThread()" ) ); // not counted, the metrics belong to the owner thread
+		return false;
+	}
+
+	/**
+	 * Node flavor of {@link #putValue(View, BionicKey, Object)}
+	 */
+	public <T> void putNodeValue( Object node, BionicKey<T> key, T value ) throws Exception {
+		if ( key instanceof ComputedKey ) {
+			throw new IllegalArgumentException( "Computed keys cannot be put" );
+		}
+		if ( !tree.isOwnerThread() ) {
+			postValue( node, key, value ); // attaining a meta touches the tree, leave that to the owner thread
+			return;
+		}
+		attainNodeMeta( node ).putValue( key, value );
+	}
+
+	/**
+	 * Unboxed {@link #getValue(View, BionicKey, Object)}, owner thread only
+	 */
+	public int getInt( View view, IntKey key, int defaultValue ) {
+		return (int) forView( view ).getBits( view, key, defaultValue );
+	}
+
+	/**
+	 * Unboxed {@link #getValue(View, BionicKey, Object)}, owner thread only
+	 */
+	public long getLong( View view, LongKey key, long defaultValue ) {
+		return forView( view ).getBits( view, key, defaultValue );
+	}
+
+	/**
+	 * Unboxed {@link #getValue(View, BionicKey, Object)}, owner thread only
+	 */
+	public float getFloat( View view, FloatKey key, float defaultValue ) {
+		return Float.intBitsToFloat( (int) forView( view ).getBits( view, key, Float.floatToRawIntBits( defaultValue ) ) );
+	}
+
+	/**
+	 * Unboxed {@link #getValue(View, BionicKey, Object)}, owner thread only
+	 */
+	public boolean getBoolean( View view, BooleanKey key, boolean defaultValue ) {
+		return forView( view ).getBits( view, key, defaultValue ? 1L : 0L ) != 0L;
+	}
+
+	private long getBits( Object node, PrimitiveKey<?> key, long defaultBits ) {
+		if ( !isReadThread() ) {
+			return defaultBits;
+		}
+		try {
+			if ( node == null ) {
+				throw new NullPointerException( "View cannot be null" );
+			}
+			Meta meta = lookup( node, key );
+			if ( meta != null ) {
+				return meta.localBits( key, defaultBits );
+			}
+		} catch ( Exception e ) {
+			BLog.e( e );
+			swallowed();
+		}
+		return defaultBits;
+	}
+
+	public void putInt( View view, IntKey key, int value ) throws Exception {
+		Bionic scope = forView( view );
+		if ( !scope.tree.isOwnerThread() ) {
+			scope.postBits( view, key, value );
+			return;
+		}
+		scope.attainNodeMeta( view ).putInt( key, value );
+	}
+
+	public void putLong( View view, LongKey key, long value ) throws Exception {
+		Bionic scope = forView( view );
+		if ( !scope.tree.isOwnerThread() ) {
+			scope.postBits( view, key, value );
+			return;
+		}
+		scope.attainNodeMeta( view ).putLong( key, value );
+	}
+
+	public void putFloat( View view, FloatKey key, float value ) throws Exception {
+		Bionic scope = forView( view );
+		if ( !scope.tree.isOwnerThread() ) {
+			scope.postBits( view, key, Float.floatToRawIntBits( value ) );
+			return;
+		}
+		scope.attainNodeMeta( view ).putFloat( key, value );
+	}
+
+	public void putBoolean( View view, BooleanKey key, boolean value ) throws Exception {
+		Bionic scope = forView( view );
+		if ( !scope.tree.isOwnerThread() ) {
+			scope.postBits( view, key, value ? 1L : 0L );
+			return;
+		}
+		scope.attainNodeMeta( view ).putBoolean( key, value );
+	}
+
+	// Puts recorded while a batch is open, delivered by commitBatch()
+	private int batchDepth = 0;
+	private long batchStart = 0; // versionClock when the outermost batch began, later stamps were put within it
+	private final ArrayList<Meta> batchMetas = new ArrayList<>();
+	private final ArrayList<BionicKey<?>> batchKeys = new ArrayList<>();
+
+	// Where commitBatch copies the batch out to, pooled per nesting level since handlers may batch while we deliver
+	private static final class CommitScratch {
+		private Meta[] metas = new Meta[8];
+		private BionicKey<?>[] keys = new BionicKey<?>[8];
+		private final KeyChange<?>[] changes = new KeyChange<?>[64];
+	}
+
+	private final ArrayList<CommitScratch> commitPool = new ArrayList<>();
+	private int commitDepth = 0;
+
+	/**
+	 * Run the given block as a batch, see {@link #beginBatch()}.<br>
+	 * The batch is committed even if the block throws.
+	 * Off the owner thread the block's puts are applied together, within a single frame.
+	 *
+	 * @param block
+	 * @throws Exception whatever the block threw
+	 */
+	public void batch( Batch block ) throws Exception {
+		beginBatch();
+		try {
+			block.run();
+		} finally {
+			commitBatch();
+		}
+	}
+
+	/**
+	 * Hold back key change delivery until the matching {@link #commitBatch()}.<br>
+	 * Values are stored immediately, so reads inside the batch see them.
+	 * Batches may be nested, delivery happens when the outermost one commits.<br>
+	 */
+	public void beginBatch() {
+		if ( !tree.isOwnerThread() ) {
+			staged.get().depth++;
+			return;
+		}
+		if ( batchDepth++ == 0 ) {
+			batchStart = versionClock;
+		}
+	}
+
+	/**
+	 * Deliver every key changed since {@link #beginBatch()}.<br>
+	 * Repeated puts to the same key on the same meta collapse into one change, and all keys put on the same meta
+	 * are delivered in a single traversal, so subscribers only ever see the final values.<br>
+	 */
+	public void commitBatch() {
+		if ( !tree.isOwnerThread() ) {
+			commitStaged();
+			return;
+		}
+		if ( batchDepth == 0 ) {
+			throw new IllegalStateException( "commitBatch() without beginBatch()" );
+		}
+		if ( --batchDepth > 0 ) {
+			return;
+		}
+
+		int size = batchMetas.size();
+		if ( size == 0 ) {
+			return;
+		}
+
+		// copy out first, handlers are free to put again (and even batch again) while we deliver
+		if ( commitDepth == commitPool.size() ) {
+			commitPool.add( new CommitScratch() );
+		}
+		CommitScratch scratch = commitPool.get( commitDepth++ );
+		if ( scratch.metas.length < size ) {
+			scratch.metas = new Meta[size];
+			scratch.keys = new BionicKey<?>[size];
+		}
+		Meta[] metas = scratch.metas;
+		BionicKey<?>[] keys = scratch.keys;
+		KeyChange<?>[] changes = scratch.changes;
+		for ( int i = 0; i < size; i++ ) {
+			metas[i] = batchMetas.get( i );
+			keys[i] = batchKeys.get( i );
+		}
+		batchMetas.clear();
+		batchKeys.clear();
+
+		try {
+			for ( int i = 0; i < size; i++ ) {
+				Meta meta = metas[i];
+				if ( meta == null ) {
+					continue; // already delivered with an earlier key of the same meta
+				}
+
+				try {
+					Object node = getNode( meta );
+					int count = 0;
+					for ( int j = i; j < size; j++ ) {
+						if ( metas[j] != meta ) {
+							continue;
+						}
+						metas[j] = null;
+						for ( KeyChange<?> change : keys[j].cascade() ) {
+							if ( indexOf( changes, count, change ) < 0 ) {
+								if ( count == changes.length ) {
+									notifyNodeChildren( node, meta, changes, count );
+									count = 0;
+								}
+								changes[count++] = change; // computed keys sharing dependencies are delivered once
+							}
+						}
+					}
+					if ( count > 0 ) {
+						notifyNodeChildren( node, meta, changes, count );
+					}
+				} catch ( Exception e ) {
+					BLog.e( e );
+					swallowed();
+				}
+			}
+		} finally {
+			Arrays.fill( metas, 0, size, null );
+			Arrays.fill( keys, 0, size, null );
+			Arrays.fill( changes, null );
+			commitDepth--;
+		}
+	}
+
+	private static final String STATE_KEY = "com.aarontharris.bionicviews.state";
+
+	/**
+	 * Save the values of saved keys held by metas at or below the given root, see {@link BionicKey#saveAs(String)}.<br>
+	 * Each meta's values go into a bundle of their own, filed under the path of view ids leading to it from the root.
+	 * Views without an id are addressed by their index in the parent, siblings sharing an id are logged and only the first is saved.<br>
+	 *
+	 * @param root
+	 * @param outState as handed to onSaveInstanceState
+	 */
+	public void saveState( View root, Bundle outState ) {
+		try {
+			Map<String, Map<String, Object>> metas = new HashMap<>();
+			forView( root ).saveNodeState( root, metas );
+			if ( metas.isEmpty() ) {
+				return;
+			}
+			Bundle bundle = new Bundle();
+			for ( Map.Entry<String, Map<String, Object>> meta : metas.entrySet() ) {
+				Bundle values = new Bundle();
+				for ( Map.Entry<String, Object> value : meta.getValue().entrySet() ) {
+					Object v = value.getValue();
+					if ( v == null || v instanceof String ) {
+						values.putString( value.getKey(), (String) v );
+					} else if ( v instanceof Parcelable ) {
+						values.putParcelable( value.getKey(), (Parcelable) v );
+					} else {
+						values.putSerializable( value.getKey(), (Serializable) v ); // primitives are saved as their bits, a Long
+					}
+				}
+				bundle.putBundle( meta.getKey(), values );
+			}
+			outState.putBundle( STATE_KEY, bundle );
+		} catch ( Exception e ) {
+			BLog.e( e );
+			swallowed();
+		}
+	}
+
+	/**
+	 * Node flavor of {@link #saveState(View, Bundle)}, for trees whose state is not kept in a Bundle.<br>
+	 * Values are Strings, Parcelables or Serializables, primitives are saved as their bits in a Long.
+	 *
+	 * @param root
+	 * @param outState path to the saved names and values of the meta found there
+	 */
+	public void saveNodeState( Object root, Map<String, Map<String, Object>> outState ) {
+		DispatchStack stack = obtainDispatchStack(); // walked like a dispatch so deep trees cannot overflow
+		try {
+			stack.push( root, 0L );
+			saveMetaState( stack, outState );
+			while ( stack.size > 0 ) {
+				int top = stack.size - 1;
+				if ( stack.nextChild[top] >= tree.getChildCount( stack.nodes[top] ) ) {
+					stack.pop();
+					continue;
+				}
+				stack.push( tree.getChildAt( stack.nodes[top], stack.nextChild[top]++ ), 0L );
+				saveMetaState( stack, outState );
+			}
+		} catch ( Exception e ) {
+			BLog.e( e );
+			swallowed();
+		} finally {
+			stack.clear();
+			dispatchDepth--;
+		}
+	}
+
+	private void saveMetaState( DispatchStack stack, Map<String, Map<String, Object>> out ) {
+		Meta meta = tree.getMeta( stack.nodes[stack.size - 1] );
+		KeyTable<Object> data = meta == null ? null : meta.data;
+		if ( data == null ) {
+			return;
+		}
+		Map<String, Object> values = null;
+		for ( int slot = 0; slot < data.capacity(); slot++ ) {
+			BionicKey<?> key = data.keyAt( slot );
+			if ( key == null || key.savedName == null ) {
+				continue;
+			}
+			Object value = data.isBitsAt( slot ) ? Long.valueOf( data.bitsAt( slot ) ) : data.valueAt( slot );
+			if ( value != null && !( value instanceof String || value instanceof Parcelable || value instanceof Serializable ) ) {
+				BLog.w( "Cannot save %s of key %s", value.getClass().getName(), key.savedName );
+				continue;
+			}
+			if ( values == null ) {
+				values = new HashMap<>();
+			}
+			values.put( key.savedName, value );
+		}
+		if ( values == null ) {
+			return;
+		}
+
+		String path = statePath( stack ); // only built for metas with something to save
+		if ( out.containsKey( path ) ) {
+			BLog.e( "Not saving the state at %s, a sibling already claims its path, give them distinct ids", path );
+			return;
+		}
+		out.put( path, values );
+	}
+
+	// The path of the stack's top node from its root, each node a pathSegment in its parent
+	private String statePath( DispatchStack stack ) {
+		StringBuilder path = new StringBuilder();
+		for ( int level = 1; level < stack.size; level++ ) {
+			path.append( '/' ).append( pathSegment( stack.nodes[level], stack.nextChild[level - 1] - 1 ) );
+		}
+		return path.toString();
+	}
+
+	private String pathSegment( Object node, int index ) {
+		int id = tree.getNodeId( node );
+		return id != BionicTree.NO_ID ? Integer.toString( id ) : "#" + index;
+	}
+
+	/**
+	 * Put back the values saved by {@link #saveState(View, Bundle)} into the same views under the given root.<br>
+	 * Everything is put in a single batch, so subscribers hear about each restored key once after all values are in place.
+	 * Paths and names that no longer match anything are skipped.<br>
+	 *
+	 * @param root
+	 * @param savedState as handed to onCreate or onRestoreInstanceState, may be null
+	 */
+	public void restoreState( View root, Bundle savedState ) {
+		Bundle metas = savedState == null ? null : savedState.getBundle( STATE_KEY );
+		if ( metas == null ) {
+			return;
+		}
+		Map<String, Map<String, Object>> state = new HashMap<>();
+		for ( String path : metas.keySet() ) {
+			Bundle bundle = metas.getBundle( path );
+			Map<String, Object> values = new HashMap<>();
+			for ( String name : bundle.keySet() ) {
+				values.put( name, bundle.get( name ) );
+			}
+			state.put( path, values );
+		}
+		forView( root ).restoreNodeState( root, state );
+	}
+
+	/**
+	 * Node flavor of {@link #restoreState(View, Bundle)}
+	 *
+	 * @param root
+	 * @param savedState as filled by {@link #saveNodeState(Object, Map)}, may be null
+	 */
+	public void restoreNodeState( Object root, Map<String, Map<String, Object>> savedState ) {
+		if ( savedState == null ) {
+			return;
+		}
+		beginBatch();
+		try {
+			for ( Map.Entry<String, Map<String, Object>> meta : savedState.entrySet() ) {
+				Object node = findNode( root, meta.getKey() );
+				if ( node != null ) {
+					restoreMetaState( attainNodeMeta( node ), meta.getValue() );
+				}
+			}
+		} catch ( Exception e ) {
+			BLog.e( e );
+			swallowed();
+		} finally {
+			commitBatch();
+		}
+	}
+
+	private void restoreMetaState( Meta meta, Map<String, Object> values ) throws Exception {
+		for ( Map.Entry<String, Object> entry : values.entrySet() ) {
+			BionicKey<?> saved;
+			synchronized ( savedKeys ) {
+				saved = savedKeys.get( entry.getKey() );
+			}
+			if ( saved == null ) {
+				continue;
+			}
+			@SuppressWarnings( "unchecked" ) // the value was saved from this key
+			BionicKey<Object> key = (BionicKey<Object>) saved;
+			Object value = entry.getValue();
+			if ( key instanceof PrimitiveKey && value instanceof Long ) {
+				meta.putBits( key, (Long) value );
+			} else {
+				meta.putValue( key, value );
+			}
+		}
+	}
+
+	/**
+	 * @return null if the path leads nowhere, see {@link #pathSegment(Object, int)}
+	 */
+	private Object findNode( Object root, String path ) {
+		Object node = root;
+		int start = 1; // paths start with the separator, the root itself is ""
+		while ( node != null && start <= path.length() ) {
+			int end = path.indexOf( '/', start );
+			if ( end < 0 ) {
+				end = path.length();
+			}
+			String segment = path.substring( start, end );
+			Object next = null;
+			int childCount = tree.getChildCount( node );
+			for ( int childIdx = 0; childIdx < childCount && next == null; childIdx++ ) {
+				Object child = tree.getChildAt( node, childIdx );
+				if ( segment.equals( pathSegment( child, childIdx ) ) ) {
+					next = child;
+				}
+			}
+			node = next;
+			start = end + 1;
+		}
+		return node;
+	}
+
+	// Writes from other threads, applied by flushPending on the owner thread, see BionicTree#isOwnerThread()
+	private final Object pendingLock = new Object();
+	private IdentityHashMap<Object, KeyTable<Object>> pending = new IdentityHashMap<>();
+	private boolean flushScheduled = false;
+
+	// Writes of a batch open on another thread, held back until it commits so they land in the same frame
+	private static final class Staging {
+		int depth = 0;
+		final IdentityHashMap<Object, KeyTable<Object>> writes = new IdentityHashMap<>();
+	}
+
+	private final ThreadLocal<Staging> staged = new ThreadLocal<Staging>() {
+		@Override
+		protected Staging initialValue() {
+			return new Staging();
+		}
+	};
+
+	private final Runnable flushPending = new Runnable() {
+		@Override
+		public void run() {
+			reclaim(); // once per frame with background writes, even if no meta is attained
+			IdentityHashMap<Object, KeyTable<Object>> writes;
+			synchronized ( pendingLock ) {
+				writes = pending;
+				pending = new IdentityHashMap<>();
+				flushScheduled = false;
+			}
+
+			beginBatch();
+			try {
+				for ( Map.Entry<Object, KeyTable<Object>> entry : writes.entrySet() ) {
+					try {
+						Meta meta = attainNodeMeta( entry.getKey() );
+						KeyTable<Object> values = entry.getValue();
+						for ( int slot = 0; slot < values.capacity(); slot++ ) {
+							@SuppressWarnings( "unchecked" ) // the value was put under this key
+							BionicKey<Object> key = (BionicKey<Object>) values.keyAt( slot );
+							if ( key == null ) {
+								continue;
+							}
+							if ( values.isBitsAt( slot ) ) {
+								meta.putBits( key, values.bitsAt( slot ) );
+							} else {
+								meta.putValue( key, values.valueAt( slot ) );
+							}
+						}
+					} catch ( Exception e ) {
+						BLog.e( e );
+						swallowed();
+					}
+				}
+			} finally {
+				commitBatch();
+			}
+		}
+	};
+
+	private void postValue( Object node, BionicKey<?> key, Object value ) {
+		if ( node == null ) {
+			return; // the meta's node is gone, nobody is left to read it
+		}
+		Staging staging = staged.get();
+		if ( staging.depth > 0 ) {
+			writesFor( staging.writes, node ).put( key, value );
+			return;
+		}
+		boolean schedule;
+		synchronized ( pendingLock ) {
+			writesFor( pending, node ).put( key, value );
+			schedule = markFlushScheduledLocked();
+		}
+		if ( schedule ) {
+			tree.post( flushPending );
+		}
+	}
+
+	private void postBits( Object node, BionicKey<?> key, long bits ) {
+		if ( node == null ) {
+			return;
+		}
+		Staging staging = staged.get();
+		if ( staging.depth > 0 ) {
+			writesFor( staging.writes, node ).putBits( key, bits );
+			return;
+		}
+		boolean schedule;
+		synchronized ( pendingLock ) {
+			writesFor( pending, node ).putBits( key, bits );
+			schedule = markFlushScheduledLocked();
+		}
+		if ( schedule ) {
+			tree.post( flushPending );
+		}
+	}
+
+	private void commitStaged() {
+		Staging staging = staged.get();
+		if ( staging.depth == 0 ) {
+			throw new IllegalStateException( "commitBatch() without beginBatch()" );
+		}
+		if ( --staging.depth > 0 ) {
+			return;
+		}
+		boolean schedule = false;
+		synchronized ( pendingLock ) {
+			for ( Map.Entry<Object, KeyTable<Object>> entry : staging.writes.entrySet() ) {
+				KeyTable<Object> from = entry.getValue();
+				KeyTable<Object> to = writesFor( pending, entry.getKey() );
+				for ( int slot = 0; slot < from.capacity(); slot++ ) {
+					BionicKey<?> key = from.keyAt( slot );
+					if ( key == null ) {
+						continue;
+					}
+					if ( from.isBitsAt( slot ) ) {
+						to.putBits( key, from.bitsAt( slot ) );
+					} else {
+						to.put( key, from.valueAt( slot ) );
+					}
+				}
+			}
+			if ( !staging.writes.isEmpty() ) {
+				schedule = markFlushScheduledLocked();
+			}
+		}
+		staging.writes.clear();
+		if ( schedule ) {
+			tree.post( flushPending );
+		}
+	}
+
+	private static KeyTable<Object> writesFor( IdentityHashMap<Object, KeyTable<Object>> writes, Object node ) {
+		KeyTable<Object> values = writes.get( node );
+		if ( values == null ) {
+			values = new KeyTable<>();
+			writes.put( node, values );
+		}
+		return values;
+	}
+
+	/**
+	 * @return true if the caller must post flushPending, false if it is already on its way
+	 */
+	private boolean markFlushScheduledLocked() {
+		if ( flushScheduled ) {
+			return false;
+		}
+		flushScheduled = true;
+		return true;
+	}
 }
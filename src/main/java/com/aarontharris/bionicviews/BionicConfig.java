@@ -1,7 +1,11 @@
 package com.aarontharris.bionicviews;
 
+import android.util.Log;
+
 public class BionicConfig {
 	private static boolean debug = true;
+	private static int logLevel = Log.VERBOSE;
+	private static long errorSampleWindowMillis = 0; // every error is logged unless an app opts in
 
 	public static void setDebug( boolean isDebug ) {
 		BionicConfig.debug = isDebug;
@@ -10,4 +14,27 @@ public class BionicConfig {
 	public static boolean isDebug() {
 		return debug;
 	}
+
+	/**
+	 * @param level minimum android.util.Log level that {@link BLog} will format and emit
+	 */
+	public static void setLogLevel( int level ) {
+		BionicConfig.logLevel = level;
+	}
+
+	public static int getLogLevel() {
+		return logLevel;
+	}
+
+	/**
+	 * @param millis how long {@link BLog} stays quiet about further errors from a call site after logging one,
+	 * their count is logged once the window ends, 0 logs every error and is the default
+	 */
+	public static void setErrorSampleWindowMillis( long millis ) {
+		BionicConfig.errorSampleWindowMillis = millis;
+	}
+
+	public static long getErrorSampleWindowMillis() {
+		return errorSampleWindowMillis;
+	}
 }
@@ -0,0 +1,332 @@
+package com.aarontharris.bionicviews;
+
+import android.graphics.Bitmap;
+import android.os.Build;
+import android.os.Trace;
+
+import com.aarontharris.bionicviews.Bionic.Meta;
+
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Opt-in counters for what the engine costs, see {@link Bionic#setMetrics(BionicMetrics)}.<br>
+ * While no metrics are set the engine pays a null check per hook, plus a weak reference per meta so metrics set later
+ * still find the metas already there.
+ * Dispatches and handlers also show up as android.os.Trace sections on API 18 and up.<br>
+ * Recorded on the tree's owner thread, take snapshots there too.<br>
+ */
+public final class BionicMetrics {
+	/**
+	 * Lookups walking this many levels or more share the last histogram bucket
+	 */
+	public static final int MAX_DEPTH = 32;
+
+	private static final boolean TRACE = Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2;
+
+	private final long[] lookupDepths = new long[MAX_DEPTH + 1];
+	private int pendingWalkLevels = 0; // levels walked by the uncached resolution inside the current lookup
+	private long dispatches = 0;
+	private long routeSteps = 0;
+	private long nodesVisited = 0;
+	private long metasVisited = 0;
+	private long handlerCalls = 0;
+	private long handlerNanos = 0;
+	private long maxHandlerNanos = 0;
+	private long swallowed = 0;
+	private long metasCreated = 0;
+	private final ArrayList<WeakReference<Meta>> liveMetas = new ArrayList<>();
+	private int pruneAt = 64; // liveMetas is compacted whenever it grows past this
+
+	/**
+	 * An immutable copy of the counters at the time of {@link #snapshot()}
+	 */
+	public static final class Snapshot {
+		/**
+		 * lookupDepths[n] counts the lookups that walked n levels, the last bucket holds everything deeper
+		 */
+		public final long[] lookupDepths;
+		public final long dispatches;
+		/**
+		 * Parents followed while finding the paths from senders down to their subscribers
+		 */
+		public final long routeSteps;
+		public final long nodesVisited;
+		public final long metasVisited;
+		public final long handlerCalls;
+		public final long handlerNanos;
+		public final long maxHandlerNanos;
+		public final long exceptionsSwallowed;
+		public final long metasCreated;
+		/**
+		 * Metas attained since the metrics were set that are still reachable
+		 */
+		public final int liveMetas;
+
+		private Snapshot( BionicMetrics m, int liveMetas ) {
+			this.lookupDepths = Arrays.copyOf( m.lookupDepths, m.lookupDepths.length );
+			this.dispatches = m.dispatches;
+			this.routeSteps = m.routeSteps;
+			this.nodesVisited = m.nodesVisited;
+			this.metasVisited = m.metasVisited;
+			this.handlerCalls = m.handlerCalls;
+			this.handlerNanos = m.handlerNanos;
+			this.maxHandlerNanos = m.maxHandlerNanos;
+			this.exceptionsSwallowed = m.swallowed;
+			this.metasCreated = m.metasCreated;
+			this.liveMetas = liveMetas;
+		}
+
+		@Override
+		public String toString() {
+			return "lookupDepths=" + Arrays.toString( lookupDepths )
+					+ " dispatches=" + dispatches
+					+ " routeSteps=" + routeSteps
+					+ " nodesVisited=" + nodesVisited
+					+ " metasVisited=" + metasVisited
+					+ " handlerCalls=" + handlerCalls
+					+ " handlerNanos=" + handlerNanos
+					+ " maxHandlerNanos=" + maxHandlerNanos
+					+ " exceptionsSwallowed=" + exceptionsSwallowed
+					+ " metasCreated=" + metasCreated
+					+ " liveMetas=" + liveMetas;
+		}
+	}
+
+	public Snapshot snapshot() {
+		return new Snapshot( this, prune() );
+	}
+
+	/**
+	 * One live meta in {@link #retainedMetas()}
+	 */
+	public static final class RetainedMeta {
+		/**
+		 * The node's class and identity, null if the node was collected and the meta outlived it
+		 */
+		public final String node;
+		public final int keys;
+		/**
+		 * Rough bytes the meta keeps reachable, its values included.
+		 * Strings, arrays, collections and Bitmaps are sized, any other value counts as a bare object.
+		 */
+		public final long approximateBytes;
+
+		private RetainedMeta( Meta meta ) {
+			Object node = meta.peekNode();
+			this.node = node == null ? null : node.getClass().getSimpleName() + "@" + Integer.toHexString( System.identityHashCode( node ) );
+			this.keys = meta.size();
+			this.approximateBytes = meta.approximateSize();
+		}
+
+		@Override
+		public String toString() {
+			return ( node == null ? "collected" : node ) + " keys=" + keys + " approximateBytes=" + approximateBytes;
+		}
+	}
+
+	/**
+	 * The metas of the Bionics these metrics are set on that are still reachable, largest first,
+	 * including those attained before the metrics were set.<br>
+	 * Metas whose node is gone are reported with a null node, {@link Bionic#reclaim()} releases them.
+	 * Use it after tearing down a screen to see what Bionic still keeps alive.<br>
+	 */
+	public List<RetainedMeta> retainedMetas() {
+		prune();
+		ArrayList<RetainedMeta> retained = new ArrayList<>( liveMetas.size() );
+		for ( WeakReference<Meta> ref : liveMetas ) {
+			Meta meta = ref.get();
+			if ( meta != null ) {
+				retained.add( new RetainedMeta( meta ) );
+			}
+		}
+		Collections.sort( retained, new Comparator<RetainedMeta>() {
+			@Override
+			public int compare( RetainedMeta lhs, RetainedMeta rhs ) {
+				return lhs.approximateBytes < rhs.approximateBytes ? 1 : lhs.approximateBytes > rhs.approximateBytes ? -1 : 0;
+			}
+		} );
+		return retained;
+	}
+
+	/**
+	 * Rough bytes held by a value, following nothing but arrays and the elements of collections
+	 */
+	static long approximateSize( Object value ) {
+		if ( value == null ) {
+			return 0;
+		}
+		if ( value instanceof String ) {
+			return 40 + 2L * ( (String) value ).length();
+		}
+		if ( value instanceof Bitmap ) {
+			return 64 + ( (Bitmap) value ).getByteCount();
+		}
+		if ( value instanceof byte[] || value instanceof boolean[] ) {
+			return 16 + Array.getLength( value );
+		}
+		if ( value instanceof char[] || value instanceof short[] ) {
+			return 16 + 2L * Array.getLength( value );
+		}
+		if ( value instanceof int[] || value instanceof float[] ) {
+			return 16 + 4L * Array.getLength( value );
+		}
+		if ( value instanceof long[] || value instanceof double[] ) {
+			return 16 + 8L * Array.getLength( value );
+		}
+		if ( value instanceof Object[] ) {
+			return elementsSize( Arrays.asList( (Object[]) value ) );
+		}
+		if ( value instanceof Collection ) {
+			return elementsSize( (Collection<?>) value );
+		}
+		if ( value instanceof Map ) {
+			return elementsSize( ( (Map<?, ?>) value ).keySet() ) + elementsSize( ( (Map<?, ?>) value ).values() );
+		}
+		return 16;
+	}
+
+	private static long elementsSize( Collection<?> elements ) {
+		long size = 16 + 4L * elements.size();
+		for ( Object element : elements ) {
+			size += element instanceof Collection || element instanceof Map || element instanceof Object[] ? 16 : approximateSize( element ); // one level deep
+		}
+		return size;
+	}
+
+	/**
+	 * Zero every counter, live metas keep being tracked
+	 */
+	public void reset() {
+		Arrays.fill( lookupDepths, 0 );
+		pendingWalkLevels = 0;
+		dispatches = 0;
+		routeSteps = 0;
+		nodesVisited = 0;
+		metasVisited = 0;
+		handlerCalls = 0;
+		handlerNanos = 0;
+		maxHandlerNanos = 0;
+		swallowed = 0;
+		metasCreated = 0;
+	}
+
+	void walked( int levels ) {
+		pendingWalkLevels += levels;
+	}
+
+	void lookup( int levels ) {
+		levels += pendingWalkLevels;
+		pendingWalkLevels = 0;
+		lookupDepths[Math.min( levels, MAX_DEPTH )]++;
+	}
+
+	void beginDispatch() {
+		dispatches++;
+		if ( TRACE ) {
+			Trace.beginSection( "Bionic.dispatch" );
+		}
+	}
+
+	void endDispatch() {
+		if ( TRACE ) {
+			Trace.endSection();
+		}
+	}
+
+	void routed( int steps ) {
+		routeSteps += steps;
+	}
+
+	void visitNode() {
+		nodesVisited++;
+	}
+
+	void visitMeta() {
+		metasVisited++;
+	}
+
+	/**
+	 * @return the start time to hand back to {@link #endHandler(long)}
+	 */
+	long beginHandler() {
+		if ( TRACE ) {
+			Trace.beginSection( "Bionic.handleEvent" );
+		}
+		return System.nanoTime();
+	}
+
+	void endHandler( long start ) {
+		long nanos = System.nanoTime() - start;
+		if ( TRACE ) {
+			Trace.endSection();
+		}
+		handlerCalls++;
+		handlerNanos += nanos;
+		if ( nanos > maxHandlerNanos ) {
+			maxHandlerNanos = nanos;
+		}
+	}
+
+	void swallowed() {
+		swallowed++;
+	}
+
+	void metaCreated( Meta meta ) {
+		metasCreated++;
+		track( meta );
+	}
+
+	/**
+	 * Track the metas a Bionic attained before these metrics were set on it
+	 */
+	void metasExisting( List<WeakReference<Meta>> metas ) {
+		Set<Meta> tracked = Collections.newSetFromMap( new IdentityHashMap<Meta, Boolean>() ); // set again after being unset
+		for ( WeakReference<Meta> ref : liveMetas ) {
+			tracked.add( ref.get() );
+		}
+		for ( WeakReference<Meta> ref : metas ) {
+			Meta meta = ref.get();
+			if ( meta != null && !tracked.contains( meta ) ) {
+				track( meta );
+			}
+		}
+	}
+
+	private void track( Meta meta ) {
+		liveMetas.add( new WeakReference<>( meta ) );
+		if ( liveMetas.size() >= pruneAt ) {
+			pruneAt = Math.max( 64, prune( liveMetas ) * 2 );
+		}
+	}
+
+	private int prune() {
+		return prune( liveMetas );
+	}
+
+	/**
+	 * Drop the collected metas, keeping the order of the others
+	 *
+	 * @return the number of live metas left
+	 */
+	static int prune( ArrayList<WeakReference<Meta>> metas ) {
+		int live = 0;
+		for ( int i = 0; i < metas.size(); i++ ) {
+			WeakReference<Meta> ref = metas.get( i );
+			if ( ref.get() != null ) {
+				metas.set( live++, ref );
+			}
+		}
+		metas.subList( live, metas.size() ).clear();
+		return live;
+	}
+}
@@ -0,0 +1,28 @@
+package com.aarontharris.bionicviews;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Put the annotated field, or the result of the annotated no-arg method, under the given key on the view's meta.<br>
+ * The generated binder puts every provided value of the view in one batch, call it whenever they changed
+ * <pre>
+ * MasterView_BionicBinder.provide( this );
+ * </pre>
+ * The field or method must not be private, see {@link BionicSubscribe}.<br>
+ */
+@Retention( RetentionPolicy.CLASS )
+@Target( { ElementType.FIELD, ElementType.METHOD } )
+public @interface BionicProvide {
+	/**
+	 * The name of the static key field, see {@link #in()}
+	 */
+	String key();
+
+	/**
+	 * The class declaring the key, the annotated class if omitted
+	 */
+	Class<?> in() default void.class;
+}
@@ -0,0 +1,35 @@
+package com.aarontharris.bionicviews;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Call the annotated method whenever the given key changes above the view.<br>
+ * The bionicviews-processor module generates a binder per annotated class, wire it up with
+ * <pre>
+ * SlaveView_BionicBinder.bind( this );
+ * </pre>
+ * The method takes no parameter, or one receiving the key's value, a primitive for primitive keys.
+ * It returns void, or a boolean as {@link Bionic.OnKeyChange#handleEvent(Bionic.Meta, Bionic.Meta, Bionic.KeyChange)} does.
+ * It must not be private.<br>
+ */
+@Retention( RetentionPolicy.CLASS )
+@Target( ElementType.METHOD )
+public @interface BionicSubscribe {
+	/**
+	 * The name of the static key field, see {@link #in()}
+	 */
+	String key();
+
+	/**
+	 * The class declaring the key, the annotated class if omitted
+	 */
+	Class<?> in() default void.class;
+
+	/**
+	 * Also call the method right away if an ancestor already provides the key
+	 */
+	boolean asap() default false;
+}
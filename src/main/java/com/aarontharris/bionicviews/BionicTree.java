@@ -0,0 +1,128 @@
+package com.aarontharris.bionicviews;
+
+import com.aarontharris.bionicviews.Bionic.Meta;
+
+/**
+ * How Bionic walks the tree it decorates and where it keeps each node's Meta.<br>
+ * Nodes are plain Objects so the engine never needs to know what they are.
+ * {@link ViewTree} adapts the Android View hierarchy and backs {@link Bionic#get()},
+ * {@link VirtualTree} is a pure Java tree for virtual nodes and for running the engine on the host JVM,
+ * see {@link Bionic#Bionic(BionicTree)}.<br>
+ */
+public abstract class BionicTree {
+	public static final int NO_ID = -1; // same as View.NO_ID
+
+	// bumped by hierarchyChanged(), invalidates every cached resolution, moves reported per node only invalidate theirs
+	int hierarchyVersion = 0;
+	Bionic bionic = null; // the Bionic built over this tree, see Bionic#Bionic(BionicTree)
+
+	/**
+	 * Implementations call this whenever a tracked node is added, removed or moved and they cannot tell which,
+	 * see {@link #isTracked(Object)}.<br>
+	 * Every lookup cached anywhere in the tree is dropped, prefer {@link #hierarchyChanged(Object, boolean)}
+	 * and {@link #nodeRemoved(Object)} which only drop those of the nodes concerned.
+	 */
+	protected void hierarchyChanged() {
+		hierarchyVersion++;
+	}
+
+	/**
+	 * Like {@link #hierarchyChanged()} for a node that may now have different ancestors, only the lookups cached
+	 * at the node, and at its descendants if subtree, are dropped.<br>
+	 * Subscribers at the node whose key is now provided by a different meta are told so,
+	 * see {@link Meta#subscribeKeyChange(Bionic.BionicKey, boolean, Bionic.OnKeyChange)}.<br>
+	 *
+	 * @param node
+	 * @param subtree true to also check the node's descendants, false if they report their own moves
+	 */
+	protected void hierarchyChanged( Object node, boolean subtree ) {
+		if ( bionic != null ) {
+			bionic.onNodeMoved( node, subtree );
+		}
+	}
+
+	/**
+	 * Like {@link #hierarchyChanged()} for a node taken out of the tree that is still tracked, only the lookups cached
+	 * at the node are dropped. Call it for the removed node and each of its descendants.<br>
+	 * Its subscribers are not told anything until it is added somewhere, see {@link #hierarchyChanged(Object, boolean)}.
+	 *
+	 * @param node
+	 */
+	protected void nodeRemoved( Object node ) {
+		if ( bionic != null ) {
+			bionic.onNodeRemoved( node );
+		}
+	}
+
+	/**
+	 * @return true if the calling thread may read and modify the tree.<br>
+	 * Puts from any other thread are queued and applied on the owner thread, see {@link #post(Runnable)}.
+	 * The default has no thread affinity, such trees must be confined to one thread by their users.
+	 */
+	public boolean isOwnerThread() {
+		return true;
+	}
+
+	/**
+	 * Run the given runnable on the owner thread, preferably just before the next frame.<br>
+	 * Called from other threads, see {@link #isOwnerThread()}, and from the owner thread to put work off until then,
+	 * see {@link Meta#observe(Bionic.BionicKey)}
+	 */
+	public void post( Runnable runnable ) {
+		runnable.run();
+	}
+
+	/**
+	 * @return null at the root
+	 */
+	public abstract Object getParent( Object node );
+
+	public abstract int getChildCount( Object node );
+
+	public abstract Object getChildAt( Object node, int index );
+
+	/**
+	 * @return may be null if no meta was attached, see {@link #setMeta(Object, Meta)}
+	 */
+	public abstract Meta getMeta( Object node );
+
+	/**
+	 * Attach the meta to the node, the node must hold it strongly.<br>
+	 * Null detaches the node's meta, see {@link Bionic#destroyNode(Object)}
+	 */
+	public abstract void setMeta( Object node, Meta meta );
+
+	/**
+	 * @return a stable id naming the node among its siblings, {@link #NO_ID} if it has none, see {@link Bionic#saveState(android.view.View, android.os.Bundle)}
+	 */
+	public int getNodeId( Object node ) {
+		return NO_ID;
+	}
+
+	/**
+	 * @return false if the node is out of sight, see {@link Meta#setDeferWhileHidden(boolean)}
+	 */
+	public boolean isVisible( Object node ) {
+		return true;
+	}
+
+	/**
+	 * Run the callback on the owner thread once, when the node may have become visible, see {@link #isVisible(Object)}.<br>
+	 * Trees whose nodes are always visible never need to call it.
+	 */
+	public void watchVisibility( Object node, Runnable callback ) {
+	}
+
+	/**
+	 * Run the callback on the owner thread once, when the node is detached, see {@link Meta#observe(Bionic.BionicKey)}.<br>
+	 * Trees whose nodes are never detached never need to call it.
+	 */
+	public void watchDetach( Object node, Runnable callback ) {
+	}
+
+	/**
+	 * @return true if any change to this node's ancestry is reported through {@link #hierarchyChanged()}
+	 * or the per node variants, lookups from untracked nodes are never cached
+	 */
+	public abstract boolean isTracked( Object node );
+}
@@ -0,0 +1,288 @@
+package com.aarontharris.bionicviews;
+
+import com.aarontharris.bionicviews.Bionic.BionicKey;
+
+import java.util.Arrays;
+
+/**
+ * Compact map from {@link BionicKey} to value, sized for the handful of keys a typical Meta carries.<br>
+ * Up to {@link #INLINE_MAX} entries live in small arrays searched linearly by identity.
+ * Beyond that the arrays become an open addressing table indexed by the key's dense id, so neither
+ * path ever calls hashCode() or boxes anything.<br>
+ * Values of primitive keys are stored unboxed as raw bits in a parallel array, see {@link #putBits(BionicKey, long)}.
+ * Another parallel array optionally stamps each entry, see {@link #setStampAt(int, long)}.<br>
+ *
+ * @param <V>
+ */
+final class KeyTable<V> {
+	private static final int INLINE_MAX = 8;
+	private static final Object BITS = new Object(); // marks a slot whose value lives in bits[]
+
+	private BionicKey<?>[] keys;
+	private Object[] values;
+	private long[] bits = null; // allocated on the first primitive put
+	private long[] stamps = null; // allocated on the first stamp
+	private int size = 0;
+	private boolean hashed = false;
+
+	KeyTable() {
+		keys = new BionicKey<?>[2];
+		values = new Object[2];
+	}
+
+	int size() {
+		return size;
+	}
+
+	boolean containsKey( BionicKey<?> key ) {
+		return indexOf( key ) >= 0;
+	}
+
+	/**
+	 * @return null if absent or if the key's value is stored as bits
+	 */
+	V get( BionicKey<?> key ) {
+		int idx = indexOf( key );
+		return idx < 0 ? null : valueAt( idx );
+	}
+
+	/**
+	 * @return the previous value, null if there was none
+	 */
+	V put( BionicKey<?> key, V value ) {
+		int idx = indexOf( key );
+		if ( idx >= 0 ) {
+			V previous = valueAt( idx );
+			values[idx] = value;
+			return previous;
+		}
+		insert( key, value, 0L );
+		return null;
+	}
+
+	/**
+	 * Store a primitive value without boxing it, see {@link #isBitsAt(int)}
+	 *
+	 * @return true if the key was added, false if it replaced a value
+	 */
+	boolean putBits( BionicKey<?> key, long value ) {
+		if ( bits == null ) {
+			bits = new long[keys.length];
+		}
+		int idx = indexOf( key );
+		if ( idx >= 0 ) {
+			values[idx] = BITS;
+			bits[idx] = value;
+			return false;
+		}
+		insert( key, BITS, value );
+		return true;
+	}
+
+	int indexOf( BionicKey<?> key ) {
+		if ( !hashed ) {
+			for ( int i = 0; i < size; i++ ) {
+				if ( keys[i] == key ) {
+					return i;
+				}
+			}
+			return -1;
+		}
+
+		int mask = keys.length - 1;
+		int i = key.id & mask; // ids are dense so they spread across the table without mixing
+		while ( true ) {
+			BionicKey<?> k = keys[i];
+			if ( k == key ) {
+				return i;
+			}
+			if ( k == null ) {
+				return -1;
+			}
+			i = ( i + 1 ) & mask;
+		}
+	}
+
+	private void insert( BionicKey<?> key, Object value, long valueBits ) {
+		if ( !hashed ) {
+			if ( size < INLINE_MAX ) {
+				if ( size == keys.length ) {
+					resizeInline( size * 2 );
+				}
+				keys[size] = key;
+				values[size] = value;
+				if ( bits != null ) {
+					bits[size] = valueBits;
+				}
+				if ( stamps != null ) {
+					stamps[size] = 0L;
+				}
+				size++;
+				return;
+			}
+			rehash( INLINE_MAX * 4 );
+		} else if ( ( size + 1 ) * 2 > keys.length ) {
+			rehash( keys.length * 2 );
+		}
+		insertHashed( key, value, valueBits, 0L );
+		size++;
+	}
+
+	/**
+	 * @return the removed value, null if there was none
+	 */
+	V remove( BionicKey<?> key ) {
+		int idx = indexOf( key );
+		if ( idx < 0 ) {
+			return null;
+		}
+		V previous = valueAt( idx );
+		size--;
+
+		if ( !hashed ) {
+			System.arraycopy( keys, idx + 1, keys, idx, size - idx );
+			System.arraycopy( values, idx + 1, values, idx, size - idx );
+			if ( bits != null ) {
+				System.arraycopy( bits, idx + 1, bits, idx, size - idx );
+			}
+			if ( stamps != null ) {
+				System.arraycopy( stamps, idx + 1, stamps, idx, size - idx );
+			}
+			keys[size] = null;
+			values[size] = null;
+			return previous;
+		}
+
+		// Backward shift deletion keeps every probe chain intact without tombstones
+		int mask = keys.length - 1;
+		int hole = idx;
+		int i = ( hole + 1 ) & mask;
+		while ( keys[i] != null ) {
+			int home = keys[i].id & mask;
+			if ( ( ( i - home ) & mask ) >= ( ( i - hole ) & mask ) ) {
+				keys[hole] = keys[i];
+				values[hole] = values[i];
+				if ( bits != null ) {
+					bits[hole] = bits[i];
+				}
+				if ( stamps != null ) {
+					stamps[hole] = stamps[i];
+				}
+				hole = i;
+			}
+			i = ( i + 1 ) & mask;
+		}
+		keys[hole] = null;
+		values[hole] = null;
+		return previous;
+	}
+
+	void clear() {
+		Arrays.fill( keys, null );
+		Arrays.fill( values, null );
+		size = 0;
+	}
+
+	/**
+	 * Rough bytes held by the table itself, not counting what its values reference
+	 */
+	long approximateSize() {
+		long size = 32 + 2 * ( 16 + 4L * keys.length ); // references are 4 bytes on ART and compressed HotSpot
+		if ( bits != null ) {
+			size += 16 + 8L * bits.length;
+		}
+		if ( stamps != null ) {
+			size += 16 + 8L * stamps.length;
+		}
+		return size;
+	}
+
+	/**
+	 * Slots are iterated from 0 to capacity(), skipping those whose {@link #keyAt(int)} is null.
+	 */
+	int capacity() {
+		return keys.length;
+	}
+
+	BionicKey<?> keyAt( int slot ) {
+		return keys[slot];
+	}
+
+	/**
+	 * @return null if the slot is empty or holds bits
+	 */
+	@SuppressWarnings( "unchecked" ) // values only ever holds V or BITS
+	V valueAt( int slot ) {
+		return values[slot] == BITS ? null : (V) values[slot];
+	}
+
+	boolean isBitsAt( int slot ) {
+		return values[slot] == BITS;
+	}
+
+	long bitsAt( int slot ) {
+		return bits[slot];
+	}
+
+	/**
+	 * @return 0 if the slot was never stamped
+	 */
+	long stampAt( int slot ) {
+		return stamps == null ? 0L : stamps[slot];
+	}
+
+	void setStampAt( int slot, long stamp ) {
+		if ( stamps == null ) {
+			stamps = new long[keys.length];
+		}
+		stamps[slot] = stamp;
+	}
+
+	private void insertHashed( BionicKey<?> key, Object value, long valueBits, long stamp ) {
+		int mask = keys.length - 1;
+		int i = key.id & mask;
+		while ( keys[i] != null ) {
+			i = ( i + 1 ) & mask;
+		}
+		keys[i] = key;
+		values[i] = value;
+		if ( bits != null ) {
+			bits[i] = valueBits;
+		}
+		if ( stamps != null ) {
+			stamps[i] = stamp;
+		}
+	}
+
+	private void resizeInline( int capacity ) {
+		BionicKey<?>[] newKeys = new BionicKey<?>[capacity];
+		Object[] newValues = new Object[capacity];
+		System.arraycopy( keys, 0, newKeys, 0, size );
+		System.arraycopy( values, 0, newValues, 0, size );
+		keys = newKeys;
+		values = newValues;
+		if ( bits != null ) {
+			bits = Arrays.copyOf( bits, capacity );
+		}
+		if ( stamps != null ) {
+			stamps = Arrays.copyOf( stamps, capacity );
+		}
+	}
+
+	private void rehash( int capacity ) {
+		BionicKey<?>[] oldKeys = keys;
+		Object[] oldValues = values;
+		long[] oldBits = bits;
+		long[] oldStamps = stamps;
+		keys = new BionicKey<?>[capacity];
+		values = new Object[capacity];
+		bits = oldBits == null ? null : new long[capacity];
+		stamps = oldStamps == null ? null : new long[capacity];
+		hashed = true;
+		for ( int i = 0; i < oldKeys.length; i++ ) {
+			if ( oldKeys[i] != null ) {
+				insertHashed( oldKeys[i], oldValues[i], oldBits == null ? 0L : oldBits[i], oldStamps == null ? 0L : oldStamps[i] );
+			}
+		}
+	}
+}
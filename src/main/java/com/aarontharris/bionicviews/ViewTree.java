@@ -0,0 +1,172 @@
+package com.aarontharris.bionicviews;
+
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.view.Choreographer;
+import android.view.View;
+import android.view.ViewGroup;
+import android.view.ViewParent;
+import android.view.ViewTreeObserver;
+
+import com.aarontharris.bionicviews.Bionic.Meta;
+
+/**
+ * The Android View hierarchy, metas ride along as a keyed tag on their view.<br>
+ * A view that is attached to a window cannot move without first being detached, so attach state
+ * changes of the views carrying metas are all we need to hear about.<br>
+ * Owned by the main thread, writes from elsewhere are applied at the next frame.<br>
+ */
+final class ViewTree extends BionicTree {
+	private final View.OnAttachStateChangeListener hierarchyListener = new View.OnAttachStateChangeListener() {
+		@Override
+		public void onViewAttachedToWindow( View v ) {
+			hierarchyChanged( v, false ); // every view carrying a meta hears its own attach, parents first
+		}
+
+		@Override
+		public void onViewDetachedFromWindow( View v ) {
+			// nothing to drop, detached views are untracked so never use their cache, and they hear their attach
+		}
+	};
+
+	private final Handler mainHandler = new Handler( Looper.getMainLooper() );
+
+	@Override
+	public boolean isOwnerThread() {
+		return Looper.myLooper() == Looper.getMainLooper();
+	}
+
+	@Override
+	public void post( final Runnable runnable ) {
+		if ( Build.VERSION.SDK_INT < Build.VERSION_CODES.JELLY_BEAN ) {
+			mainHandler.post( runnable );
+			return;
+		}
+		// the Choreographer belongs to the main thread so hop there first, then wait for the frame
+		mainHandler.post( new Runnable() {
+			@Override
+			public void run() {
+				Choreographer.getInstance().postFrameCallback( new Choreographer.FrameCallback() {
+					@Override
+					public void doFrame( long frameTimeNanos ) {
+						runnable.run();
+					}
+				} );
+			}
+		} );
+	}
+
+	@Override
+	public Object getParent( Object node ) {
+		ViewParent parent = ( (View) node ).getParent();
+		return parent instanceof View ? parent : null; // the ViewRootImpl is not part of our tree
+	}
+
+	@Override
+	public int getChildCount( Object node ) {
+		return node instanceof ViewGroup ? ( (ViewGroup) node ).getChildCount() : 0;
+	}
+
+	@Override
+	public Object getChildAt( Object node, int index ) {
+		return ( (ViewGroup) node ).getChildAt( index );
+	}
+
+	@Override
+	public Meta getMeta( Object node ) {
+		Meta meta = (Meta) ( (View) node ).getTag( R.id.bionic_meta );
+		return meta == null || meta.getBionic() == bionic ? meta : null; // every scope shares the tag, see Bionic#of(View)
+	}
+
+	@Override
+	public void setMeta( Object node, Meta meta ) {
+		View view = (View) node;
+		if ( meta == null ) {
+			view.setTag( R.id.bionic_meta, null );
+			view.removeOnAttachStateChangeListener( hierarchyListener );
+			return;
+		}
+		if ( view.getTag( R.id.bionic_meta ) != null ) {
+			throw new IllegalStateException( "The view already belongs to another Bionic scope, see Bionic.of(View)" );
+		}
+		view.setTag( R.id.bionic_meta, meta );
+		view.addOnAttachStateChangeListener( hierarchyListener );
+	}
+
+	@Override
+	public int getNodeId( Object node ) {
+		return ( (View) node ).getId();
+	}
+
+	@Override
+	public boolean isVisible( Object node ) {
+		return ( (View) node ).isShown();
+	}
+
+	@Override
+	public void watchVisibility( Object node, Runnable callback ) {
+		new VisibilityWatch( (View) node, callback ).start();
+	}
+
+	@Override
+	public void watchDetach( Object node, final Runnable callback ) {
+		( (View) node ).addOnAttachStateChangeListener( new View.OnAttachStateChangeListener() {
+			@Override
+			public void onViewAttachedToWindow( View v ) {
+			}
+
+			@Override
+			public void onViewDetachedFromWindow( View v ) {
+				v.removeOnAttachStateChangeListener( this );
+				callback.run();
+			}
+		} );
+	}
+
+	/**
+	 * Showing a view always leads to a draw, so check just before each one until it is shown.<br>
+	 * The pre-draw listener only lives while the view is attached, so a view dropped while hidden leaves nothing behind in the window.
+	 */
+	private static final class VisibilityWatch implements ViewTreeObserver.OnPreDrawListener, View.OnAttachStateChangeListener {
+		private final View view;
+		private final Runnable callback;
+
+		VisibilityWatch( View view, Runnable callback ) {
+			this.view = view;
+			this.callback = callback;
+		}
+
+		void start() {
+			view.addOnAttachStateChangeListener( this );
+			if ( view.getWindowToken() != null ) {
+				view.getViewTreeObserver().addOnPreDrawListener( this );
+			}
+		}
+
+		@Override
+		public boolean onPreDraw() {
+			if ( view.isShown() ) {
+				view.getViewTreeObserver().removeOnPreDrawListener( this );
+				view.removeOnAttachStateChangeListener( this );
+				callback.run();
+			}
+			return true;
+		}
+
+		@Override
+		public void onViewAttachedToWindow( View v ) {
+			view.getViewTreeObserver().addOnPreDrawListener( this );
+		}
+
+		@Override
+		public void onViewDetachedFromWindow( View v ) {
+			view.getViewTreeObserver().removeOnPreDrawListener( this ); // still the window's observer at this point
+		}
+	}
+
+	@Override
+	public boolean isTracked( Object node ) {
+		return ( (View) node ).getWindowToken() != null; // detached views can be rearranged without notice
+	}
+}
@@ -0,0 +1,103 @@
+package com.aarontharris.bionicviews;
+
+import com.aarontharris.bionicviews.Bionic.Meta;
+
+import java.util.ArrayList;
+
+/**
+ * A lightweight node of a {@link VirtualTree}, carries a Meta without being a View.
+ */
+public class VirtualNode {
+	private final VirtualTree tree;
+	private VirtualNode parent = null;
+	private ArrayList<VirtualNode> children = null;
+	private int id = BionicTree.NO_ID;
+	Meta meta = null; // see VirtualTree#setMeta
+	ArrayList<Runnable> detachWatches = null; // see VirtualTree#watchDetach
+
+	public VirtualNode( VirtualTree tree ) {
+		this.tree = tree;
+	}
+
+	public VirtualTree getTree() {
+		return tree;
+	}
+
+	/**
+	 * Names the node among its siblings, like a View id, see {@link Bionic#saveNodeState(Object, java.util.Map)}
+	 */
+	public void setId( int id ) {
+		this.id = id;
+	}
+
+	public int getId() {
+		return id;
+	}
+
+	/**
+	 * @return null at the root
+	 */
+	public VirtualNode getParent() {
+		return parent;
+	}
+
+	public int getChildCount() {
+		return children == null ? 0 : children.size();
+	}
+
+	public VirtualNode getChildAt( int index ) {
+		return children.get( index );
+	}
+
+	public void addChild( VirtualNode child ) {
+		addChild( child, getChildCount() );
+	}
+
+	public void addChild( VirtualNode child, int index ) {
+		if ( child.tree != tree ) {
+			throw new IllegalArgumentException( "Child belongs to a different tree" );
+		}
+		if ( child.parent != null ) {
+			throw new IllegalStateException( "Child already has a parent, remove it first" );
+		}
+		if ( children == null ) {
+			children = new ArrayList<>();
+		}
+		children.add( index, child );
+		child.parent = this;
+		tree.hierarchyChanged( child, true );
+	}
+
+	public void removeChild( VirtualNode child ) {
+		if ( children != null && children.remove( child ) ) {
+			child.parent = null;
+			child.detached(); // like a detached view, the child is checked again when it is added somewhere
+		}
+	}
+
+	private void detached() {
+		ArrayList<VirtualNode> pending = null; // an explicit stack, deep subtrees would overflow the call stack
+		VirtualNode node = this;
+		while ( node != null ) {
+			tree.nodeRemoved( node );
+			node.runDetachWatches();
+			for ( int i = node.getChildCount() - 1; i >= 0; i-- ) { // pushed in reverse so children run in order
+				if ( pending == null ) {
+					pending = new ArrayList<>();
+				}
+				pending.add( node.children.get( i ) );
+			}
+			node = pending == null || pending.isEmpty() ? null : pending.remove( pending.size() - 1 );
+		}
+	}
+
+	private void runDetachWatches() {
+		if ( detachWatches != null ) {
+			ArrayList<Runnable> watches = detachWatches;
+			detachWatches = null; // each watch runs once
+			for ( Runnable watch : watches ) {
+				watch.run();
+			}
+		}
+	}
+}
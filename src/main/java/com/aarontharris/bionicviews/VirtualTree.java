@@ -0,0 +1,64 @@
+package com.aarontharris.bionicviews;
+
+import com.aarontharris.bionicviews.Bionic.Meta;
+
+import java.util.ArrayList;
+
+/**
+ * A tree of {@link VirtualNode}s, for models that never become Views (RecyclerView item models, canvas drawn widgets)
+ * and for running the engine on the plain JVM.<br>
+ * Every add and remove is reported, so lookups are always cached.<br>
+ * <pre>
+ * VirtualTree tree = new VirtualTree();
+ * Bionic bionic = new Bionic( tree );
+ * VirtualNode root = new VirtualNode( tree );
+ * </pre>
+ */
+public class VirtualTree extends BionicTree {
+	@Override
+	public Object getParent( Object node ) {
+		return ( (VirtualNode) node ).getParent();
+	}
+
+	@Override
+	public int getChildCount( Object node ) {
+		return ( (VirtualNode) node ).getChildCount();
+	}
+
+	@Override
+	public Object getChildAt( Object node, int index ) {
+		return ( (VirtualNode) node ).getChildAt( index );
+	}
+
+	@Override
+	public Meta getMeta( Object node ) {
+		return ( (VirtualNode) node ).meta;
+	}
+
+	@Override
+	public void setMeta( Object node, Meta meta ) {
+		( (VirtualNode) node ).meta = meta;
+	}
+
+	@Override
+	public int getNodeId( Object node ) {
+		return ( (VirtualNode) node ).getId();
+	}
+
+	/**
+	 * Removing a node detaches it and its descendants
+	 */
+	@Override
+	public void watchDetach( Object node, Runnable callback ) {
+		VirtualNode virtualNode = (VirtualNode) node;
+		if ( virtualNode.detachWatches == null ) {
+			virtualNode.detachWatches = new ArrayList<>();
+		}
+		virtualNode.detachWatches.add( callback );
+	}
+
+	@Override
+	public boolean isTracked( Object node ) {
+		return true;
+	}
+}
@@ -0,0 +1,50 @@
+package com.aarontharris.bionicviews;
+
+import android.util.Log;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class BLogTest {
+	private final List<String> printed = new ArrayList<>();
+
+	@Before
+	public void setup() {
+		BLog.setPrinter( new BLog.Printer() {
+			@Override
+			public void println( int level, String tag, String message ) {
+				printed.add( message );
+			}
+		} );
+		BionicConfig.setLogLevel( Log.VERBOSE );
+		BionicConfig.setErrorSampleWindowMillis( 60000 );
+	}
+
+	@After
+	public void teardown() {
+		BionicConfig.setErrorSampleWindowMillis( 0 );
+		BLog.setPrinter( null );
+	}
+
+	@Test
+	public void errorStormsAreSummarized() {
+		Exception storm = new IllegalStateException( "storm" );
+		for ( int i = 0; i < 100; i++ ) {
+			BLog.e( storm );
+		}
+		assertEquals( 1, printed.size() );
+
+		BLog.flushSummary(); // what the timer does once the window is over, even with no error after the burst
+		assertEquals( 2, printed.size() );
+		assertTrue( printed.get( 1 ).startsWith( "Errors dropped by sampling: " ) );
+
+		BLog.flushSummary();
+		assertEquals( 2, printed.size() ); // nothing dropped since
+	}
+}
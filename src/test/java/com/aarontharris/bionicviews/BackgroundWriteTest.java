@@ -0,0 +1,129 @@
+package com.aarontharris.bionicviews;
+
+import com.aarontharris.bionicviews.Bionic.IntKey;
+import com.aarontharris.bionicviews.Bionic.KeyChange;
+import com.aarontharris.bionicviews.Bionic.Meta;
+import com.aarontharris.bionicviews.Bionic.OnKeyChange;
+import com.aarontharris.bionicviews.Bionic.StringKey;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Writes from other threads are applied on the owner thread, see {@link BionicTree#isOwnerThread()}
+ */
+public class BackgroundWriteTest {
+	private static final StringKey key = new StringKey();
+	private static final IntKey count = new IntKey();
+
+	private final List<Runnable> posted = new ArrayList<>();
+	private final List<String> received = new ArrayList<>();
+	private Bionic bionic;
+	private VirtualNode root;
+	private VirtualNode leaf;
+
+	@Before
+	public void setup() throws Exception {
+		BLog.setPrinter( new BLog.Printer() {
+			@Override
+			public void println( int level, String tag, String message ) {
+			}
+		} );
+
+		final Thread owner = Thread.currentThread();
+		VirtualTree tree = new VirtualTree() {
+			@Override
+			public boolean isOwnerThread() {
+				return Thread.currentThread() == owner;
+			}
+
+			@Override
+			public void post( Runnable runnable ) {
+				synchronized ( posted ) {
+					posted.add( runnable );
+				}
+			}
+		};
+		bionic = new Bionic( tree );
+		root = new VirtualNode( tree );
+		leaf = new VirtualNode( tree );
+		root.addChild( leaf );
+		bionic.attainNodeMeta( leaf ).subscribeKeyChange( key, false, new OnKeyChange<StringKey>() {
+			@Override
+			public boolean handleEvent( Meta metaSend, Meta metaRecv, KeyChange<StringKey> event ) {
+				received.add( metaSend.getValue( key, null ) );
+				return true;
+			}
+		} );
+	}
+
+	private void runOffOwnerThread( final Bionic.Batch block ) throws Exception {
+		final Exception[] failure = { null };
+		Thread writer = new Thread() {
+			@Override
+			public void run() {
+				try {
+					block.run();
+				} catch ( Exception e ) {
+					failure[0] = e;
+				}
+			}
+		};
+		writer.start();
+		writer.join();
+		if ( failure[0] != null ) {
+			throw failure[0];
+		}
+	}
+
+	@Test
+	public void backgroundWritesArriveCoalesced() throws Exception {
+		final String[] offThreadRead = { null };
+		runOffOwnerThread( new Bionic.Batch() {
+			@Override
+			public void run() throws Exception {
+				for ( int i = 0; i < 100; i++ ) {
+					bionic.putNodeValue( root, key, "v" + i );
+					bionic.putNodeValue( root, count, i );
+				}
+				offThreadRead[0] = bionic.getNodeValue( root, key, "none" ); // reads off the owner thread never throw
+			}
+		} );
+		assertEquals( "none", offThreadRead[0] );
+
+		assertNull( bionic.getNodeMeta( root ) ); // nothing touched the tree yet
+		assertEquals( 1, posted.size() );
+		posted.get( 0 ).run();
+		assertEquals( Arrays.asList( "v99" ), received );
+		assertEquals( 99, bionic.attainNodeMeta( leaf ).getInt( count, 0 ) );
+	}
+
+	@Test
+	public void backgroundBatchesWaitForTheirCommit() throws Exception {
+		final int[] postedBeforeCommit = { -1 };
+		runOffOwnerThread( new Bionic.Batch() {
+			@Override
+			public void run() throws Exception {
+				bionic.beginBatch();
+				bionic.putNodeValue( root, key, "a" );
+				bionic.putNodeValue( leaf, count, 1 );
+				synchronized ( posted ) {
+					postedBeforeCommit[0] = posted.size();
+				}
+				bionic.commitBatch();
+			}
+		} );
+
+		assertEquals( 0, postedBeforeCommit[0] ); // held back until the commit
+		assertEquals( 1, posted.size() );
+		posted.get( 0 ).run();
+		assertEquals( Arrays.asList( "a" ), received );
+		assertEquals( 1, bionic.attainNodeMeta( leaf ).getInt( count, 0 ) );
+	}
+}
@@ -0,0 +1,99 @@
+package com.aarontharris.bionicviews;
+
+import com.aarontharris.bionicviews.Bionic.KeyChange;
+import com.aarontharris.bionicviews.Bionic.Meta;
+import com.aarontharris.bionicviews.Bionic.OnKeyChange;
+import com.aarontharris.bionicviews.Bionic.StringKey;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * What {@link BionicMetrics} records, and when
+ */
+public class BionicMetricsTest {
+	private static final StringKey key = new StringKey();
+
+	private VirtualTree tree;
+	private Bionic bionic;
+	private VirtualNode root;
+	private VirtualNode mid;
+	private VirtualNode leaf;
+	private final List<String> received = new ArrayList<>();
+
+	@Before
+	public void setup() throws Exception {
+		tree = new VirtualTree();
+		bionic = new Bionic( tree );
+		root = new VirtualNode( tree );
+		mid = new VirtualNode( tree );
+		leaf = new VirtualNode( tree );
+		root.addChild( mid );
+		mid.addChild( leaf );
+
+		bionic.attainNodeMeta( leaf ).subscribeKeyChange( key, false, new OnKeyChange<StringKey>() {
+			@Override
+			public boolean handleEvent( Meta metaSend, Meta metaRecv, KeyChange<StringKey> event ) {
+				received.add( metaSend.getValue( key, null ) );
+				return true;
+			}
+		} );
+	}
+
+	@Test
+	public void handlersMayUnsetTheMetrics() throws Exception {
+		BionicMetrics metrics = new BionicMetrics();
+		bionic.setMetrics( metrics );
+		bionic.attainNodeMeta( mid ).subscribeKeyChange( key, false, new OnKeyChange<StringKey>() {
+			@Override
+			public boolean handleEvent( Meta metaSend, Meta metaRecv, KeyChange<StringKey> event ) {
+				bionic.setMetrics( null );
+				return true;
+			}
+		} );
+
+		bionic.putNodeValue( root, key, "root" );
+		assertEquals( Arrays.asList( "root" ), received );
+		assertEquals( 1, metrics.snapshot().handlerCalls ); // the handler that unset them is still recorded
+		assertEquals( 0, metrics.snapshot().exceptionsSwallowed );
+	}
+
+	@Test
+	public void metricsSetLateSeeTheMetasAlreadyThere() throws Exception {
+		VirtualTree lateTree = new VirtualTree();
+		Bionic late = new Bionic( lateTree );
+		VirtualNode node = new VirtualNode( lateTree );
+		Meta meta = late.attainNodeMeta( node );
+		meta.putValue( key, "leaking" );
+
+		BionicMetrics metrics = new BionicMetrics();
+		late.setMetrics( metrics );
+		late.setMetrics( null );
+		late.setMetrics( metrics ); // set again, still tracked once
+		assertEquals( 1, metrics.snapshot().liveMetas );
+		assertEquals( 0, metrics.snapshot().metasCreated );
+		assertEquals( 1, metrics.retainedMetas().get( 0 ).keys );
+	}
+
+	@Test
+	public void retainedMetasComeLargestFirst() throws Exception {
+		BionicMetrics metrics = new BionicMetrics();
+		bionic.setMetrics( metrics );
+		bionic.attainNodeMeta( root ).putValue( key, "a large value, larger than the others by far" );
+		bionic.attainNodeMeta( mid ).putValue( key, "small" );
+
+		List<BionicMetrics.RetainedMeta> retained = metrics.retainedMetas();
+		assertEquals( 3, retained.size() );
+		assertEquals( 2, metrics.snapshot().metasCreated ); // root and mid, the leaf's meta came before the metrics
+		for ( int i = 1; i < retained.size(); i++ ) {
+			assertTrue( retained.get( i - 1 ).approximateBytes >= retained.get( i ).approximateBytes );
+		}
+		assertTrue( retained.get( 0 ).approximateBytes > retained.get( 1 ).approximateBytes );
+	}
+}
@@ -0,0 +1,97 @@
+package com.aarontharris.bionicviews;
+
+import com.aarontharris.bionicviews.Bionic.ComputedKey;
+import com.aarontharris.bionicviews.Bionic.IntKey;
+import com.aarontharris.bionicviews.Bionic.KeyChange;
+import com.aarontharris.bionicviews.Bionic.Meta;
+import com.aarontharris.bionicviews.Bionic.OnKeyChange;
+import com.aarontharris.bionicviews.Bionic.StringKey;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Keys computed from other keys, see {@link ComputedKey}
+ */
+public class ComputedKeyTest {
+	private static final StringKey key = new StringKey();
+	private static final IntKey count = new IntKey();
+
+	private Bionic bionic;
+	private VirtualNode root;
+	private VirtualNode mid;
+	private VirtualNode leaf;
+	private final List<String> received = new ArrayList<>();
+	private final int[] computes = { 0 };
+	private final ComputedKey<String> label = new ComputedKey<String>( key, count ) {
+		@Override
+		protected String compute( Meta meta ) {
+			computes[0]++;
+			return meta.getValue( key, "" ) + meta.getInt( count, 0 );
+		}
+	};
+
+	@Before
+	public void setup() throws Exception {
+		VirtualTree tree = new VirtualTree();
+		bionic = new Bionic( tree );
+		root = new VirtualNode( tree );
+		mid = new VirtualNode( tree );
+		leaf = new VirtualNode( tree );
+		root.addChild( mid );
+		mid.addChild( leaf );
+
+		bionic.attainNodeMeta( leaf ).subscribeKeyChange( key, false, new OnKeyChange<StringKey>() {
+			@Override
+			public boolean handleEvent( Meta metaSend, Meta metaRecv, KeyChange<StringKey> event ) {
+				received.add( metaSend.getValue( key, null ) );
+				return true;
+			}
+		} );
+		bionic.attainNodeMeta( leaf ).subscribeKeyChange( label, false, new OnKeyChange<ComputedKey<String>>() {
+			@Override
+			public boolean handleEvent( Meta metaSend, Meta metaRecv, KeyChange<ComputedKey<String>> event ) {
+				received.add( "label " + metaSend.getValue( label, null ) );
+				return true;
+			}
+		} );
+	}
+
+	@Test
+	public void computedKeysMemoizeAndFollowTheirDependencies() throws Exception {
+		Meta rootMeta = bionic.attainNodeMeta( root );
+
+		rootMeta.putValue( key, "a" );
+		rootMeta.putInt( count, 1 );
+		assertEquals( Arrays.asList( "a", "label a0", "label a1" ), received );
+		assertEquals( "a1", bionic.getNodeValue( leaf, label, null ) );
+		assertEquals( "a1", bionic.getNodeValue( mid, label, null ) );
+		assertEquals( 2, computes[0] );
+
+		bionic.attainNodeMeta( mid ).putInt( count, 5 );
+		assertEquals( "label a5", received.get( received.size() - 1 ) );
+		assertEquals( "a1", bionic.getNodeValue( root, label, null ) );
+
+		received.clear();
+		rootMeta.putInt( count, 2 ); // shadowed by mid
+		assertEquals( Arrays.<String>asList(), received );
+		assertEquals( "a5", bionic.getNodeValue( leaf, label, null ) );
+	}
+
+	@Test
+	public void computedKeysCannotBePut() throws Exception {
+		try {
+			bionic.attainNodeMeta( root ).putValue( label, "put" );
+			fail();
+		} catch ( IllegalArgumentException expected ) {
+		}
+		assertEquals( 0, received.size() );
+		assertEquals( 0, computes[0] );
+	}
+}
@@ -0,0 +1,111 @@
+package com.aarontharris.bionicviews;
+
+import com.aarontharris.bionicviews.Bionic.KeyObserver;
+import com.aarontharris.bionicviews.Bionic.KeyStream;
+import com.aarontharris.bionicviews.Bionic.Meta;
+import com.aarontharris.bionicviews.Bionic.StringKey;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Conflated streams of a key's values, see {@link Meta#observe(Bionic.BionicKey)}
+ */
+public class KeyStreamTest {
+	private static final StringKey key = new StringKey();
+
+	private final List<Runnable> posted = new ArrayList<>(); // one entry per frame a delivery was scheduled for
+	private final List<String> received = new ArrayList<>();
+	private Bionic bionic;
+	private VirtualNode root;
+	private VirtualNode leaf;
+	private Meta rootMeta;
+
+	@Before
+	public void setup() throws Exception {
+		VirtualTree tree = new VirtualTree() {
+			@Override
+			public void post( Runnable runnable ) {
+				posted.add( runnable );
+			}
+		};
+		bionic = new Bionic( tree );
+		root = new VirtualNode( tree );
+		leaf = new VirtualNode( tree );
+		root.addChild( leaf );
+		rootMeta = bionic.attainNodeMeta( root );
+	}
+
+	private KeyObserver<String> into( final List<String> values ) {
+		return new KeyObserver<String>() {
+			@Override
+			public void onValue( String value ) {
+				values.add( value );
+			}
+		};
+	}
+
+	@Test
+	public void observersHearTheLatestValueOncePerFrame() throws Exception {
+		rootMeta.putValue( key, "first" );
+
+		KeyStream<String> stream = bionic.attainNodeMeta( leaf ).observe( key );
+		List<String> other = new ArrayList<>();
+		stream.subscribe( into( received ) );
+		stream.subscribe( into( other ) );
+		assertEquals( 1, posted.size() );
+		posted.remove( 0 ).run();
+		assertEquals( Arrays.asList( "first" ), received );
+
+		for ( int i = 0; i < 100; i++ ) {
+			rootMeta.putValue( key, "v" + i );
+		}
+		assertEquals( 1, posted.size() );
+		posted.remove( 0 ).run();
+		assertEquals( Arrays.asList( "first", "v99" ), received );
+		assertEquals( received, other );
+
+		root.removeChild( leaf ); // detaching unsubscribes
+		rootMeta.putValue( key, "gone" );
+		assertEquals( 0, posted.size() );
+	}
+
+	@Test
+	public void observersHearTheirOwnMetasPuts() throws Exception {
+		rootMeta.putValue( key, "a" );
+		rootMeta.observe( key ).subscribe( into( received ) );
+		posted.remove( 0 ).run();
+
+		rootMeta.putValue( key, "b" ); // the providing meta itself, not an ancestor
+		assertEquals( 1, posted.size() );
+		posted.remove( 0 ).run();
+		assertEquals( Arrays.asList( "a", "b" ), received );
+	}
+
+	@Test
+	public void lateObserversHearOnlyWhatTheyMissed() throws Exception {
+		rootMeta.putValue( key, "a" );
+		KeyStream<String> stream = bionic.attainNodeMeta( leaf ).observe( key );
+		KeyObserver<String> early = into( received );
+		stream.subscribe( early );
+		posted.remove( 0 ).run();
+
+		List<String> late = new ArrayList<>();
+		stream.subscribe( into( late ) );
+		posted.remove( 0 ).run();
+		assertEquals( Arrays.asList( "a" ), received ); // already heard it
+		assertEquals( Arrays.asList( "a" ), late );
+
+		stream.unsubscribe( early );
+		rootMeta.putValue( key, "b" );
+		posted.remove( 0 ).run();
+		assertEquals( Arrays.asList( "a" ), received );
+		assertEquals( Arrays.asList( "a", "b" ), late );
+	}
+}
@@ -0,0 +1,131 @@
+package com.aarontharris.bionicviews;
+
+import com.aarontharris.bionicviews.Bionic.BionicKey;
+import com.aarontharris.bionicviews.Bionic.StringKey;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * The storage behind every meta, see {@link KeyTable}
+ */
+public class KeyTableTest {
+	private static final int HASHED_CAPACITY = 32; // where a table lands once it outgrows its inline arrays
+
+	/**
+	 * @return count keys whose ids share a home slot in a table of the given capacity, starting at home
+	 */
+	private static List<BionicKey<?>> colliding( int capacity, int home, int count ) {
+		List<BionicKey<?>> keys = new ArrayList<>();
+		while ( keys.size() < count ) {
+			StringKey key = new StringKey();
+			if ( ( key.id & ( capacity - 1 ) ) == home ) {
+				keys.add( key );
+			}
+		}
+		return keys;
+	}
+
+	@Test
+	public void entriesSurviveTheSwitchToHashing() throws Exception {
+		KeyTable<String> table = new KeyTable<>();
+		List<BionicKey<?>> keys = new ArrayList<>();
+		for ( int i = 0; i < 100; i++ ) {
+			BionicKey<?> key = new StringKey();
+			keys.add( key );
+			assertNull( table.put( key, "v" + i ) );
+		}
+		assertEquals( 100, table.size() );
+		for ( int i = 0; i < 100; i++ ) {
+			assertEquals( "v" + i, table.get( keys.get( i ) ) );
+		}
+		assertEquals( "v3", table.put( keys.get( 3 ), "w3" ) );
+		assertEquals( "w3", table.get( keys.get( 3 ) ) );
+		assertFalse( table.containsKey( new StringKey() ) );
+	}
+
+	@Test
+	public void removalsKeepProbeChainsIntact() throws Exception {
+		KeyTable<String> table = new KeyTable<>();
+		// one chain wrapping around the end of the table, with a key from the next home slot caught in it
+		List<BionicKey<?>> keys = colliding( HASHED_CAPACITY, HASHED_CAPACITY - 1, 6 );
+		keys.addAll( colliding( HASHED_CAPACITY, 0, 3 ) );
+		keys.addAll( colliding( HASHED_CAPACITY, 1, 3 ) );
+		for ( BionicKey<?> key : keys ) {
+			table.put( key, "v" + key.id );
+		}
+		assertEquals( HASHED_CAPACITY, table.capacity() );
+
+		for ( int i = 0; i < keys.size(); i += 2 ) {
+			assertEquals( "v" + keys.get( i ).id, table.remove( keys.get( i ) ) );
+			for ( int j = 0; j < keys.size(); j++ ) {
+				assertEquals( j <= i && j % 2 == 0 ? null : "v" + keys.get( j ).id, table.get( keys.get( j ) ) );
+			}
+		}
+		assertEquals( keys.size() / 2, table.size() );
+		assertNull( table.remove( keys.get( 0 ) ) );
+
+		int occupied = 0;
+		for ( int slot = 0; slot < table.capacity(); slot++ ) {
+			occupied += table.keyAt( slot ) == null ? 0 : 1; // no tombstones left behind
+		}
+		assertEquals( table.size(), occupied );
+	}
+
+	@Test
+	public void bitsAndStampsMoveWithTheirEntries() throws Exception {
+		KeyTable<String> table = new KeyTable<>();
+		List<BionicKey<?>> keys = colliding( HASHED_CAPACITY, 5, 12 );
+		for ( int i = 0; i < keys.size(); i++ ) {
+			BionicKey<?> key = keys.get( i );
+			if ( i % 3 == 0 ) {
+				assertTrue( table.putBits( key, -i ) );
+			} else {
+				table.put( key, "v" + i );
+			}
+			table.setStampAt( table.indexOf( key ), 100 + i );
+		}
+		assertFalse( table.putBits( keys.get( 0 ), Long.MIN_VALUE ) ); // replaced, not added
+
+		table.remove( keys.get( 1 ) );
+		table.remove( keys.get( 6 ) );
+		for ( int i = 0; i < keys.size(); i++ ) {
+			int slot = table.indexOf( keys.get( i ) );
+			if ( i == 1 || i == 6 ) {
+				assertEquals( -1, slot );
+				continue;
+			}
+			assertEquals( 100 + i, table.stampAt( slot ) );
+			assertEquals( i % 3 == 0, table.isBitsAt( slot ) );
+			if ( i % 3 == 0 ) {
+				assertEquals( i == 0 ? Long.MIN_VALUE : -i, table.bitsAt( slot ) );
+				assertNull( table.valueAt( slot ) );
+			} else {
+				assertEquals( "v" + i, table.valueAt( slot ) );
+			}
+		}
+	}
+
+	@Test
+	public void inlineRemovalsKeepTheRestInOrder() throws Exception {
+		KeyTable<String> table = new KeyTable<>();
+		StringKey a = new StringKey();
+		StringKey b = new StringKey();
+		StringKey c = new StringKey();
+		table.put( a, "a" );
+		table.putBits( b, 2L );
+		table.put( c, "c" );
+		table.setStampAt( table.indexOf( c ), 3L );
+
+		assertEquals( "a", table.remove( a ) );
+		assertEquals( 0, table.indexOf( b ) );
+		assertEquals( 2L, table.bitsAt( 0 ) );
+		assertEquals( 1, table.indexOf( c ) );
+		assertEquals( 3L, table.stampAt( 1 ) );
+		assertNull( table.keyAt( 2 ) );
+	}
+}
@@ -0,0 +1,94 @@
+package com.aarontharris.bionicviews;
+
+import com.aarontharris.bionicviews.Bionic.BooleanKey;
+import com.aarontharris.bionicviews.Bionic.FloatKey;
+import com.aarontharris.bionicviews.Bionic.IntKey;
+import com.aarontharris.bionicviews.Bionic.LongKey;
+import com.aarontharris.bionicviews.Bionic.Meta;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Primitive keys are stored as raw bits, see {@link Bionic.PrimitiveKey}
+ */
+public class PrimitiveKeyTest {
+	private static final IntKey count = new IntKey();
+	private static final LongKey stamp = new LongKey();
+	private static final FloatKey ratio = new FloatKey();
+	private static final BooleanKey flag = new BooleanKey();
+
+	private Bionic bionic;
+	private VirtualNode root;
+	private VirtualNode leaf;
+	private Meta rootMeta;
+	private Meta leafMeta;
+
+	@Before
+	public void setup() throws Exception {
+		VirtualTree tree = new VirtualTree();
+		bionic = new Bionic( tree );
+		root = new VirtualNode( tree );
+		leaf = new VirtualNode( tree );
+		root.addChild( leaf );
+		rootMeta = bionic.attainNodeMeta( root );
+		leafMeta = bionic.attainNodeMeta( leaf );
+	}
+
+	@Test
+	public void primitivesRoundTrip() throws Exception {
+		rootMeta.putInt( count, Integer.MIN_VALUE );
+		rootMeta.putLong( stamp, Long.MIN_VALUE );
+		rootMeta.putFloat( ratio, -0f );
+		rootMeta.putBoolean( flag, true );
+
+		assertEquals( Integer.MIN_VALUE, leafMeta.getInt( count, 0 ) );
+		assertEquals( Long.MIN_VALUE, leafMeta.getLong( stamp, 0L ) );
+		assertEquals( Float.floatToRawIntBits( -0f ), Float.floatToRawIntBits( leafMeta.getFloat( ratio, 1f ) ) );
+		assertTrue( leafMeta.getBoolean( flag, false ) );
+
+		// the generic flavors box on the way out
+		assertEquals( Integer.valueOf( Integer.MIN_VALUE ), bionic.getNodeValue( leaf, count, null ) );
+		assertEquals( Long.valueOf( Long.MIN_VALUE ), bionic.getNodeValue( leaf, stamp, null ) );
+		assertEquals( Float.valueOf( -0f ), bionic.getNodeValue( leaf, ratio, null ) );
+		assertEquals( Boolean.TRUE, bionic.getNodeValue( leaf, flag, null ) );
+	}
+
+	@Test
+	public void boxedPutsAreStoredUnboxed() throws Exception {
+		rootMeta.putValue( count, 7 );
+		rootMeta.putValue( stamp, 8L );
+		rootMeta.putValue( ratio, Float.NaN );
+		rootMeta.putValue( flag, false );
+
+		assertEquals( 7, leafMeta.getInt( count, 0 ) );
+		assertEquals( 8L, leafMeta.getLong( stamp, 0L ) );
+		assertTrue( Float.isNaN( leafMeta.getFloat( ratio, 0f ) ) );
+		assertFalse( leafMeta.getBoolean( flag, true ) );
+		assertEquals( Integer.valueOf( 7 ), count.get( leafMeta ) );
+	}
+
+	@Test
+	public void nullPutsReadAsTheDefault() throws Exception {
+		rootMeta.putInt( count, 7 );
+		rootMeta.putLong( stamp, 8L );
+		rootMeta.putFloat( ratio, 9f );
+		rootMeta.putBoolean( flag, true );
+
+		leafMeta.putValue( count, null ); // still provided here, so the ancestor's value is shadowed
+		leafMeta.putValue( stamp, null );
+		leafMeta.putValue( ratio, null );
+		leafMeta.putValue( flag, null );
+		assertEquals( -1, leafMeta.getInt( count, -1 ) );
+		assertEquals( -1L, leafMeta.getLong( stamp, -1L ) );
+		assertEquals( -1f, leafMeta.getFloat( ratio, -1f ), 0f );
+		assertFalse( leafMeta.getBoolean( flag, false ) );
+		assertNull( bionic.getNodeValue( leaf, count, 5 ) );
+
+		leafMeta.putInt( count, 3 ); // and back to bits
+		assertEquals( 3, leafMeta.getInt( count, -1 ) );
+		assertEquals( Integer.valueOf( 3 ), bionic.getNodeValue( leaf, count, null ) );
+	}
+}
@@ -0,0 +1,98 @@
+package com.aarontharris.bionicviews;
+
+import com.aarontharris.bionicviews.Bionic.KeyChange;
+import com.aarontharris.bionicviews.Bionic.Meta;
+import com.aarontharris.bionicviews.Bionic.OnKeyChange;
+import com.aarontharris.bionicviews.Bionic.StringKey;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Metas that outlive their nodes, see {@link Bionic#reclaim()}
+ */
+public class ReclaimTest {
+	private static final StringKey key = new StringKey();
+
+	private VirtualTree tree;
+	private Bionic bionic;
+	private VirtualNode root;
+	private VirtualNode mid;
+
+	@Before
+	public void setup() throws Exception {
+		tree = new VirtualTree();
+		bionic = new Bionic( tree );
+		root = new VirtualNode( tree );
+		mid = new VirtualNode( tree );
+		root.addChild( mid );
+	}
+
+	/**
+	 * @return a meta held on to here, as a stale cache would, whose node is already unreachable
+	 */
+	private Meta orphan() throws Exception {
+		VirtualNode doomed = new VirtualNode( tree );
+		mid.addChild( doomed );
+		Meta meta = bionic.attainNodeMeta( doomed );
+		meta.putValue( key, "large" );
+		mid.removeChild( doomed );
+		return meta;
+	}
+
+	@Test
+	public void metasOutlivingTheirNodesAreReleased() throws Exception {
+		BionicMetrics metrics = new BionicMetrics();
+		bionic.attainNodeMeta( root );
+		bionic.setMetrics( metrics );
+		Meta meta = orphan();
+
+		int released = 0;
+		for ( int i = 0; i < 50 && released == 0; i++ ) {
+			System.gc();
+			Thread.sleep( 10 );
+			released = bionic.reclaim();
+		}
+		assertEquals( 1, released );
+		assertFalse( meta.containsKey( key ) );
+		int collected = 0;
+		for ( BionicMetrics.RetainedMeta retained : metrics.retainedMetas() ) {
+			collected += retained.node == null ? 1 : 0; // the root's meta from before the metrics is listed too
+		}
+		assertEquals( 1, collected );
+	}
+
+	@Test
+	public void updatesAloneReleaseMetasOutlivingTheirNodes() throws Exception {
+		Meta rootMeta = bionic.attainNodeMeta( root );
+		bionic.attainNodeMeta( mid ).subscribeKeyChange( key, false, new OnKeyChange<StringKey>() {
+			@Override
+			public boolean handleEvent( Meta metaSend, Meta metaRecv, KeyChange<StringKey> event ) {
+				return true;
+			}
+		} );
+		Meta meta = orphan();
+
+		for ( int i = 0; i < 50 && meta.containsKey( key ); i++ ) {
+			System.gc();
+			Thread.sleep( 10 );
+			rootMeta.putValue( key, "update " + i ); // no meta attained, the dispatch reclaims
+		}
+		assertFalse( meta.containsKey( key ) );
+	}
+
+	@Test
+	public void destroyingReleasesTheWholeSubtree() throws Exception {
+		Meta rootMeta = bionic.attainNodeMeta( root );
+		Meta midMeta = bionic.attainNodeMeta( mid );
+		midMeta.putValue( key, "mid" );
+
+		bionic.destroyNode( root );
+		assertFalse( midMeta.containsKey( key ) );
+		assertNull( bionic.getNodeMeta( mid ) );
+		assertNull( bionic.getNodeMeta( root ) );
+		assertFalse( rootMeta.containsKey( key ) );
+	}
+}
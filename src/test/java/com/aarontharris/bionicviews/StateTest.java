@@ -0,0 +1,127 @@
+package com.aarontharris.bionicviews;
+
+import com.aarontharris.bionicviews.Bionic.IntKey;
+import com.aarontharris.bionicviews.Bionic.KeyChange;
+import com.aarontharris.bionicviews.Bionic.Meta;
+import com.aarontharris.bionicviews.Bionic.OnKeyChange;
+import com.aarontharris.bionicviews.Bionic.StringKey;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Saving and restoring the values of saved keys, see {@link Bionic#saveNodeState(Object, Map)}
+ */
+public class StateTest {
+	private static final StringKey title = new StringKey().saveAs( "StateTest.title" );
+	private static final IntKey count = new IntKey().saveAs( "StateTest.count" );
+	private static final StringKey unsaved = new StringKey();
+
+	private final List<String> errors = new ArrayList<>();
+
+	@Before
+	public void setup() throws Exception {
+		BLog.setPrinter( new BLog.Printer() {
+			@Override
+			public void println( int level, String tag, String message ) {
+				if ( level == android.util.Log.ERROR ) {
+					errors.add( message );
+				}
+			}
+		} );
+	}
+
+	// root > ( #0 > 7, 9 ), so the same shape can be built again to restore into
+	private static VirtualNode[] build( Bionic bionic ) {
+		VirtualTree tree = (VirtualTree) bionic.getTree();
+		VirtualNode root = new VirtualNode( tree );
+		VirtualNode group = new VirtualNode( tree );
+		VirtualNode seven = new VirtualNode( tree );
+		VirtualNode nine = new VirtualNode( tree );
+		seven.setId( 7 );
+		nine.setId( 9 );
+		root.addChild( group );
+		group.addChild( seven );
+		group.addChild( nine );
+		return new VirtualNode[] { root, group, seven, nine };
+	}
+
+	@Test
+	public void savedValuesComeBackIntoTheSameNodes() throws Exception {
+		Bionic bionic = new Bionic( new VirtualTree() );
+		VirtualNode[] nodes = build( bionic );
+		bionic.putNodeValue( nodes[0], title, "root" );
+		bionic.attainNodeMeta( nodes[2] ).putInt( count, 7 );
+		bionic.putNodeValue( nodes[3], title, "nine" );
+		bionic.putNodeValue( nodes[3], unsaved, "lost" );
+
+		Map<String, Map<String, Object>> state = new HashMap<>();
+		bionic.saveNodeState( nodes[0], state );
+		assertEquals( 3, state.size() );
+		assertEquals( "root", state.get( "" ).get( "StateTest.title" ) );
+		assertEquals( 7L, state.get( "/#0/7" ).get( "StateTest.count" ) );
+		assertEquals( 1, state.get( "/#0/9" ).size() );
+
+		state.put( "/#0/8", state.get( "/#0/9" ) ); // leads nowhere, skipped
+
+		Bionic restored = new Bionic( new VirtualTree() );
+		VirtualNode[] again = build( restored );
+		final List<String> received = new ArrayList<>();
+		restored.attainNodeMeta( again[2] ).subscribeKeyChange( title, false, new OnKeyChange<StringKey>() {
+			@Override
+			public boolean handleEvent( Meta metaSend, Meta metaRecv, KeyChange<StringKey> event ) {
+				received.add( metaSend.getValue( title, null ) );
+				return true;
+			}
+		} );
+		restored.restoreNodeState( again[0], state );
+		assertEquals( "root", restored.getNodeValue( again[1], title, null ) );
+		assertEquals( 7, restored.attainNodeMeta( again[2] ).getInt( count, 0 ) );
+		assertEquals( "nine", restored.getNodeValue( again[3], title, null ) );
+		assertNull( restored.getNodeValue( again[3], unsaved, null ) );
+		assertEquals( Arrays.asList( "root" ), received ); // one batch, so each key is heard once
+		assertEquals( 0, errors.size() );
+	}
+
+	@Test
+	public void siblingsSharingAnIdAreLogged() throws Exception {
+		Bionic bionic = new Bionic( new VirtualTree() );
+		VirtualNode[] nodes = build( bionic );
+		nodes[3].setId( 7 );
+		bionic.putNodeValue( nodes[2], title, "first" );
+		bionic.putNodeValue( nodes[3], title, "second" );
+
+		Map<String, Map<String, Object>> state = new HashMap<>();
+		bionic.saveNodeState( nodes[0], state );
+		assertEquals( 1, state.size() );
+		assertEquals( "first", state.get( "/#0/7" ).get( "StateTest.title" ) ); // the one the path restores into
+		assertEquals( 1, errors.size() );
+	}
+
+	@Test
+	public void deepTreesSaveWithoutOverflow() throws Exception {
+		VirtualTree tree = new VirtualTree();
+		Bionic bionic = new Bionic( tree );
+		VirtualNode root = new VirtualNode( tree );
+		VirtualNode deep = root;
+		for ( int i = 0; i < 100000; i++ ) {
+			VirtualNode child = new VirtualNode( tree );
+			deep.addChild( child );
+			deep = child;
+		}
+		bionic.putNodeValue( deep, title, "deep" );
+
+		Map<String, Map<String, Object>> state = new HashMap<>();
+		bionic.saveNodeState( root, state );
+		assertEquals( 1, state.size() );
+		assertEquals( 100000 * 3, state.keySet().iterator().next().length() ); // "/#0" per level
+	}
+}
@@ -0,0 +1,568 @@
+package com.aarontharris.bionicviews;
+
+import com.aarontharris.bionicviews.Bionic.ComputedKey;
+import com.aarontharris.bionicviews.Bionic.Equivalence;
+import com.aarontharris.bionicviews.Bionic.IntKey;
+import com.aarontharris.bionicviews.Bionic.KeyChange;
+import com.aarontharris.bionicviews.Bionic.Meta;
+import com.aarontharris.bionicviews.Bionic.MetaEvent;
+import com.aarontharris.bionicviews.Bionic.OnKeyChange;
+import com.aarontharris.bionicviews.Bionic.OnMetaEvent;
+import com.aarontharris.bionicviews.Bionic.StringKey;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Runs the engine headless over a {@link VirtualTree}, no device or emulator needed.
+ */
+public class VirtualTreeTest {
+	private static final StringKey key = new StringKey();
+	private static final IntKey count = new IntKey();
+
+	private VirtualTree tree;
+	private Bionic bionic;
+	private VirtualNode root;
+	private VirtualNode mid;
+	private VirtualNode leaf;
+	private final List<String> received = new ArrayList<>();
+
+	@Before
+	public void setup() throws Exception {
+		BLog.setPrinter( new BLog.Printer() {
+			@Override
+			public void println( int level, String tag, String message ) {
+			}
+		} );
+
+		tree = new VirtualTree();
+		bionic = new Bionic( tree );
+		root = node( null );
+		mid = node( root );
+		leaf = node( mid );
+
+		bionic.attainNodeMeta( leaf ).subscribeKeyChange( key, false, new OnKeyChange<StringKey>() {
+			@Override
+			public boolean handleEvent( Meta metaSend, Meta metaRecv, KeyChange<StringKey> event ) {
+				received.add( metaSend.getValue( key, null ) );
+				return true;
+			}
+		} );
+	}
+
+	private VirtualNode node( VirtualNode parent ) {
+		VirtualNode node = new VirtualNode( tree );
+		if ( parent != null ) {
+			parent.addChild( node );
+		}
+		return node;
+	}
+
+	@Test
+	public void lookupFindsNearestProvider() throws Exception {
+		bionic.putNodeValue( root, key, "root" );
+		assertEquals( "root", bionic.getNodeValue( leaf, key, null ) );
+
+		bionic.putNodeValue( mid, key, "mid" );
+		assertEquals( "mid", bionic.getNodeValue( leaf, key, null ) );
+		assertEquals( "root", bionic.getNodeValue( mid.getParent(), key, null ) );
+	}
+
+	@Test
+	public void missesReturnTheDefaultWithoutErrors() throws Exception {
+		BionicMetrics metrics = new BionicMetrics();
+		bionic.setMetrics( metrics );
+		Meta leafMeta = bionic.attainNodeMeta( leaf );
+
+		assertEquals( "none", leafMeta.getValue( key, "none" ) );
+		assertNull( key.get( leafMeta ) );
+		assertEquals( 5, leafMeta.getInt( count, 5 ) );
+		assertEquals( 0, metrics.snapshot().exceptionsSwallowed );
+
+		// the cached miss must not hide a provider that shows up later
+		bionic.putNodeValue( root, key, "root" );
+		assertEquals( "root", leafMeta.getValue( key, "none" ) );
+	}
+
+	@Test
+	public void lookupFollowsMovedNodes() throws Exception {
+		VirtualNode other = node( null );
+		bionic.putNodeValue( root, key, "root" );
+		bionic.putNodeValue( other, key, "other" );
+		assertEquals( "root", bionic.getNodeValue( leaf, key, null ) );
+
+		mid.removeChild( leaf );
+		other.addChild( leaf );
+		assertEquals( "other", bionic.getNodeValue( leaf, key, null ) );
+	}
+
+	@Test
+	public void movesElsewhereKeepCachedLookups() throws Exception {
+		BionicMetrics metrics = new BionicMetrics();
+		bionic.setMetrics( metrics );
+		bionic.putNodeValue( root, key, "root" );
+		Meta leafMeta = bionic.attainNodeMeta( leaf );
+		assertEquals( "root", leafMeta.getValue( key, null ) );
+
+		metrics.reset();
+		VirtualNode beside = node( root );
+		bionic.attainNodeMeta( beside );
+		root.removeChild( beside );
+		mid.addChild( beside );
+		assertEquals( "root", leafMeta.getValue( key, null ) );
+		assertEquals( 0, metrics.snapshot().lookupDepths[2] ); // the leaf's cached walk up to root survives
+
+		metrics.reset();
+		root.removeChild( mid );
+		root.addChild( mid );
+		assertEquals( "root", leafMeta.getValue( key, null ) );
+		assertEquals( 1, metrics.snapshot().lookupDepths[2] ); // the leaf moved along, so it walked again
+	}
+
+	@Test
+	public void providersElsewhereKeepCachedLookups() throws Exception {
+		BionicMetrics metrics = new BionicMetrics();
+		bionic.setMetrics( metrics );
+		bionic.putNodeValue( root, key, "root" );
+		Meta leafMeta = bionic.attainNodeMeta( leaf );
+		assertEquals( "root", leafMeta.getValue( key, null ) );
+
+		metrics.reset();
+		VirtualNode beside = node( root );
+		bionic.putNodeValue( beside, key, "beside" ); // a new provider, but not above the leaf
+		bionic.putNodeValue( node( null ), key, "detached" );
+		assertEquals( "root", leafMeta.getValue( key, null ) );
+		assertEquals( 0, metrics.snapshot().lookupDepths[2] );
+
+		bionic.putNodeValue( mid, key, "mid" ); // above the leaf, so it walks again
+		assertEquals( "mid", leafMeta.getValue( key, null ) );
+	}
+
+	@Test
+	public void movedSubscribersHearTheirNewProvider() throws Exception {
+		VirtualNode other = node( null );
+		bionic.putNodeValue( root, key, "root" );
+		bionic.putNodeValue( other, key, "other" );
+		received.clear();
+
+		mid.removeChild( leaf );
+		assertEquals( 0, received.size() ); // nobody to read from
+
+		other.addChild( leaf );
+		assertEquals( Arrays.asList( "other" ), received );
+
+		// same provider, nothing to tell
+		other.removeChild( leaf );
+		other.addChild( leaf );
+		assertEquals( Arrays.asList( "other" ), received );
+
+		// a subtree moves as one, its subscribers follow
+		VirtualNode branch = node( null );
+		VirtualNode deep = node( branch );
+		bionic.attainNodeMeta( deep ).subscribeKeyChange( key, false, new OnKeyChange<StringKey>() {
+			@Override
+			public boolean handleEvent( Meta metaSend, Meta metaRecv, KeyChange<StringKey> event ) {
+				received.add( "deep:" + metaSend.getValue( key, null ) );
+				return true;
+			}
+		} );
+		root.addChild( branch );
+		assertEquals( Arrays.asList( "other", "deep:root" ), received );
+	}
+
+	@Test
+	public void suspendedSubtreesHearOnlyTheLatestChange() throws Exception {
+		Meta midMeta = bionic.attainNodeMeta( mid );
+		midMeta.suspendDelivery();
+		bionic.putNodeValue( root, key, "a" );
+		bionic.putNodeValue( root, key, "b" );
+		assertEquals( 0, received.size() );
+
+		midMeta.resumeDelivery();
+		assertEquals( Arrays.asList( "b" ), received );
+
+		// puts from within the subtree are its own business, and a held back change they shadow is dropped
+		midMeta.suspendDelivery();
+		bionic.putNodeValue( root, key, "c" );
+		midMeta.putValue( key, "mid" );
+		midMeta.resumeDelivery();
+		assertEquals( Arrays.asList( "b", "mid" ), received );
+	}
+
+	@Test
+	public void consumedDeferredKeysStillDeliverTheirDependents() throws Exception {
+		final ComputedKey<String> label = new ComputedKey<String>( key ) {
+			@Override
+			protected String compute( Meta meta ) {
+				return "label " + meta.getValue( key, "" );
+			}
+		};
+		bionic.attainNodeMeta( leaf ).subscribeKeyChange( label, false, new OnKeyChange<ComputedKey<String>>() {
+			@Override
+			public boolean handleEvent( Meta metaSend, Meta metaRecv, KeyChange<ComputedKey<String>> event ) {
+				received.add( metaSend.getValue( label, null ) );
+				return true;
+			}
+		} );
+		Meta midMeta = bionic.attainNodeMeta( mid );
+		midMeta.subscribeKeyChange( key, false, new OnKeyChange<StringKey>() {
+			@Override
+			public boolean handleEvent( Meta metaSend, Meta metaRecv, KeyChange<StringKey> event ) {
+				return false; // consumes the key, not the label computed from it
+			}
+		} );
+
+		midMeta.suspendDelivery();
+		bionic.putNodeValue( root, key, "a" );
+		assertEquals( 0, received.size() );
+
+		midMeta.resumeDelivery();
+		assertEquals( Arrays.asList( "label a" ), received );
+	}
+
+	@Test
+	public void resetMetasFallBackToTheirAncestors() throws Exception {
+		bionic.putNodeValue( root, key, "root" );
+		Meta midMeta = bionic.attainNodeMeta( mid );
+		midMeta.putValue( key, "bound" );
+		assertEquals( "bound", bionic.getNodeValue( leaf, key, null ) );
+
+		midMeta.reset();
+		assertEquals( "root", bionic.getNodeValue( leaf, key, null ) );
+		assertSame( midMeta, bionic.getNodeMeta( mid ) );
+
+		midMeta.putValue( key, "rebound" );
+		assertEquals( Arrays.asList( "bound", "rebound" ), received.subList( received.size() - 2, received.size() ) );
+	}
+
+	@Test
+	public void rebindingElsewhereKeepsCachedLookups() throws Exception {
+		BionicMetrics metrics = new BionicMetrics();
+		bionic.setMetrics( metrics );
+		bionic.putNodeValue( root, key, "root" );
+		Meta leafMeta = bionic.attainNodeMeta( leaf );
+		assertEquals( "root", leafMeta.getValue( key, null ) );
+
+		metrics.reset();
+		Meta item = bionic.attainNodeMeta( node( root ) );
+		for ( int i = 0; i < 10; i++ ) {
+			item.reset(); // a RecyclerView item being rebound beside the leaf
+			item.putValue( key, "item" + i );
+			assertEquals( "root", leafMeta.getValue( key, null ) );
+		}
+		assertEquals( 0, metrics.snapshot().lookupDepths[2] );
+	}
+
+	@Test
+	public void batchesDeliverEachKeyOnce() throws Exception {
+		Meta rootMeta = bionic.attainNodeMeta( root );
+		rootMeta.putValue( key, "before" );
+		received.clear();
+
+		bionic.beginBatch();
+		for ( int i = 0; i < 1000; i++ ) {
+			rootMeta.putValue( key, "v" + i );
+			rootMeta.putInt( count, i );
+		}
+		assertEquals( 0, received.size() );
+		bionic.commitBatch();
+		assertEquals( Arrays.asList( "v999" ), received );
+
+		bionic.beginBatch(); // a later batch hears the same keys again
+		rootMeta.putValue( key, "after" );
+		bionic.commitBatch();
+		assertEquals( Arrays.asList( "v999", "after" ), received );
+	}
+
+	@Test
+	public void closerProviderShadowsDelivery() throws Exception {
+		bionic.putNodeValue( root, key, "a" );
+		bionic.putNodeValue( mid, key, "b" );
+		bionic.putNodeValue( root, key, "c" );
+		assertEquals( Arrays.asList( "a", "b" ), received );
+	}
+
+	@Test
+	public void distinctKeysSkipUnchangedPuts() throws Exception {
+		final StringKey distinct = new StringKey( Equivalence.EQUALS );
+		final IntKey distinctCount = new IntKey( Equivalence.EQUALS );
+		final List<String> changes = new ArrayList<>();
+		Meta leafMeta = bionic.attainNodeMeta( leaf );
+		leafMeta.subscribeKeyChange( distinct, false, new OnKeyChange<StringKey>() {
+			@Override
+			public boolean handleEvent( Meta metaSend, Meta metaRecv, KeyChange<StringKey> event ) {
+				changes.add( metaSend.getValue( distinct, null ) );
+				return true;
+			}
+		} );
+		leafMeta.subscribeKeyChange( distinctCount, false, new OnKeyChange<IntKey>() {
+			@Override
+			public boolean handleEvent( Meta metaSend, Meta metaRecv, KeyChange<IntKey> event ) {
+				changes.add( "#" + metaSend.getInt( distinctCount, 0 ) );
+				return true;
+			}
+		} );
+
+		Meta rootMeta = bionic.attainNodeMeta( root );
+		rootMeta.putValue( distinct, "a" );
+		long version = leafMeta.getVersion( distinct );
+		rootMeta.putValue( distinct, new String( "a" ) );
+		assertFalse( leafMeta.hasChangedSince( distinct, version ) );
+		rootMeta.putValue( distinct, "b" );
+		assertTrue( leafMeta.hasChangedSince( distinct, version ) );
+
+		rootMeta.putInt( distinctCount, 1 );
+		rootMeta.putInt( distinctCount, 1 );
+		rootMeta.putInt( distinctCount, 2 );
+		assertEquals( Arrays.asList( "a", "b", "#1", "#2" ), changes );
+
+		// plain keys still deliver every put
+		rootMeta.putValue( key, "x" );
+		rootMeta.putValue( key, "x" );
+		assertEquals( Arrays.asList( "x", "x" ), received );
+	}
+
+	@Test
+	public void everyListenerHearsTheChange() throws Exception {
+		OnKeyChange<StringKey> second = new OnKeyChange<StringKey>() {
+			@Override
+			public boolean handleEvent( Meta metaSend, Meta metaRecv, KeyChange<StringKey> event ) {
+				received.add( "second" );
+				return true;
+			}
+		};
+		Meta leafMeta = bionic.attainNodeMeta( leaf );
+		leafMeta.subscribeKeyChange( key, false, second );
+		leafMeta.subscribeKeyChange( key, false, second );
+
+		bionic.putNodeValue( root, key, "a" );
+		assertEquals( Arrays.asList( "a", "second" ), received );
+
+		received.clear();
+		leafMeta.unsubscribeKeyChange( key, second );
+		bionic.putNodeValue( root, key, "b" );
+		assertEquals( Arrays.asList( "b" ), received );
+	}
+
+	static class Ping extends MetaEvent {
+		Ping() {
+			super( Ping.class );
+		}
+	}
+
+	@Test
+	public void customEventsReachTheirSubscribers() throws Exception {
+		OnMetaEvent<Ping> handler = new OnMetaEvent<Ping>() {
+			@Override
+			public boolean handleEvent( Meta metaSend, Meta metaRecv, Ping event ) {
+				received.add( "ping" );
+				return true;
+			}
+		};
+		Meta rootMeta = bionic.attainNodeMeta( root );
+		bionic.attainNodeMeta( leaf ).subscribeEvent( Ping.class, handler );
+
+		bionic.notifyNodeChildren( root, rootMeta, new Ping() );
+		assertEquals( Arrays.asList( "ping" ), received );
+
+		bionic.attainNodeMeta( leaf ).unsubscribeEvent( Ping.class, handler );
+		bionic.notifyNodeChildren( root, rootMeta, new Ping() );
+		assertEquals( Arrays.asList( "ping" ), received );
+	}
+
+	@Test
+	public void descendantEventsBubbleToTheNearestConsumer() throws Exception {
+		OnMetaEvent<Ping> consumer = new OnMetaEvent<Ping>() {
+			@Override
+			public boolean handleEvent( Meta metaSend, Meta metaRecv, Ping event ) {
+				received.add( "mid" );
+				return false;
+			}
+		};
+		bionic.attainNodeMeta( root ).subscribeDescendantEvent( Ping.class, new OnMetaEvent<Ping>() {
+			@Override
+			public boolean handleEvent( Meta metaSend, Meta metaRecv, Ping event ) {
+				received.add( "root" );
+				return true;
+			}
+		} );
+		bionic.attainNodeMeta( mid ).subscribeDescendantEvent( Ping.class, consumer );
+		bionic.attainNodeMeta( mid ).subscribeDescendantEvent( Ping.class, new OnMetaEvent<Ping>() {
+			@Override
+			public boolean handleEvent( Meta metaSend, Meta metaRecv, Ping event ) {
+				received.add( "mid too" ); // the consumer before it does not keep it from hearing the event
+				return true;
+			}
+		} );
+		Meta leafMeta = bionic.attainNodeMeta( leaf );
+
+		assertTrue( bionic.notifyNodeAncestors( leaf, leafMeta, new Ping() ) );
+		assertEquals( Arrays.asList( "mid", "mid too" ), received );
+
+		bionic.attainNodeMeta( mid ).unsubscribeDescendantEvent( Ping.class, consumer );
+		assertFalse( bionic.notifyNodeAncestors( leaf, leafMeta, new Ping() ) );
+		assertEquals( Arrays.asList( "mid", "mid too", "mid too", "root" ), received );
+
+		mid.removeChild( leaf );
+		assertFalse( bionic.notifyNodeAncestors( leaf, leafMeta, new Ping() ) );
+		assertEquals( Arrays.asList( "mid", "mid too", "mid too", "root" ), received );
+	}
+
+	@Test
+	public void scopesKeepToThemselvesAndDestroyAtOnce() throws Exception {
+		Bionic other = new Bionic( new VirtualTree() );
+		VirtualNode otherRoot = new VirtualNode( (VirtualTree) other.getTree() );
+		other.attainNodeMeta( otherRoot ).putValue( key, "other" );
+		assertEquals( Arrays.<String>asList(), received ); // the same key, a different scope
+
+		bionic.attainNodeMeta( root ).putValue( key, "a" );
+		assertEquals( Arrays.asList( "a" ), received );
+
+		bionic.destroyNode( root );
+		assertNull( bionic.getNodeMeta( root ) );
+		assertNull( bionic.getNodeMeta( leaf ) );
+		try {
+			bionic.attainNodeMeta( root );
+			fail();
+		} catch ( IllegalStateException expected ) {
+		}
+		assertEquals( "other", other.getNodeValue( otherRoot, key, null ) );
+	}
+
+	@Test
+	public void handlersPruneTheTraversal() throws Exception {
+		bionic.attainNodeMeta( node( root ) ).subscribeKeyChange( key, false, new OnKeyChange<StringKey>() {
+			@Override
+			public boolean handleEvent( Meta metaSend, Meta metaRecv, KeyChange<StringKey> event ) {
+				received.add( "side" );
+				return true;
+			}
+		} );
+		final boolean[] stop = { false };
+		bionic.attainNodeMeta( mid ).subscribeKeyChange( key, false, new OnKeyChange<StringKey>() {
+			@Override
+			public boolean handleEvent( Meta metaSend, Meta metaRecv, KeyChange<StringKey> event ) {
+				received.add( "mid" );
+				if ( stop[0] ) {
+					metaRecv.getBionic().stopDispatch();
+				}
+				return false;
+			}
+		} );
+		Meta rootMeta = bionic.attainNodeMeta( root );
+
+		rootMeta.putValue( key, "a" ); // consumed by mid, its sibling still hears it
+		assertEquals( Arrays.asList( "mid", "side" ), received );
+
+		received.clear();
+		stop[0] = true;
+		rootMeta.putValue( key, "b" );
+		assertEquals( Arrays.asList( "mid" ), received );
+	}
+
+	@Test
+	public void subscribersShareTheirRoutes() throws Exception {
+		BionicMetrics metrics = new BionicMetrics();
+		bionic.setMetrics( metrics );
+		VirtualNode below = leaf;
+		VirtualNode elsewhere = node( null );
+		for ( int i = 0; i < 20; i++ ) {
+			below = node( below );
+			elsewhere = node( elsewhere );
+		}
+		OnKeyChange<StringKey> handler = new OnKeyChange<StringKey>() {
+			@Override
+			public boolean handleEvent( Meta metaSend, Meta metaRecv, KeyChange<StringKey> event ) {
+				received.add( "sub" );
+				return true;
+			}
+		};
+		for ( int i = 0; i < 10; i++ ) {
+			bionic.attainNodeMeta( node( below ) ).subscribeKeyChange( key, false, handler );
+			bionic.attainNodeMeta( node( elsewhere ) ).subscribeKeyChange( key, false, handler );
+		}
+
+		metrics.reset();
+		bionic.putNodeValue( root, key, "a" );
+		assertEquals( 11, received.size() );
+		assertEquals( 11, metrics.snapshot().metasVisited );
+		// the leaf walks 2 up to the root, the first of each ten walks its chain, the other nine stop right above themselves
+		assertEquals( 2 + 21 + 22 + 9 + 9, metrics.snapshot().routeSteps );
+	}
+
+	@Test
+	public void handlersMayRemoveTheirSiblings() throws Exception {
+		final VirtualNode side = node( root );
+		bionic.attainNodeMeta( side ).subscribeKeyChange( key, false, new OnKeyChange<StringKey>() {
+			@Override
+			public boolean handleEvent( Meta metaSend, Meta metaRecv, KeyChange<StringKey> event ) {
+				received.add( "side" );
+				return true;
+			}
+		} );
+		bionic.attainNodeMeta( mid ).subscribeKeyChange( key, false, new OnKeyChange<StringKey>() {
+			@Override
+			public boolean handleEvent( Meta metaSend, Meta metaRecv, KeyChange<StringKey> event ) {
+				root.removeChild( side );
+				return true;
+			}
+		} );
+
+		bionic.putNodeValue( root, key, "a" );
+		assertEquals( Arrays.asList( "a" ), received ); // the removed sibling is skipped, not walked past the end
+	}
+
+	@Test
+	public void deepTreesDoNotOverflow() throws Exception {
+		VirtualNode deep = leaf;
+		for ( int i = 0; i < 100000; i++ ) {
+			deep = node( deep );
+		}
+		bionic.attainNodeMeta( deep ).subscribeKeyChange( key, false, new OnKeyChange<StringKey>() {
+			@Override
+			public boolean handleEvent( Meta metaSend, Meta metaRecv, KeyChange<StringKey> event ) {
+				received.add( "deep " + metaSend.getValue( key, null ) );
+				return true;
+			}
+		} );
+		bionic.attainNodeMeta( root ).putValue( key, "a" );
+		assertEquals( Arrays.asList( "a", "deep a" ), received );
+	}
+
+	@Test
+	public void deepSubtreesMoveAndReleaseWithoutOverflow() throws Exception {
+		VirtualNode top = node( null );
+		VirtualNode deep = top;
+		for ( int i = 0; i < 100000; i++ ) {
+			deep = node( deep );
+		}
+		bionic.attainNodeMeta( deep ).subscribeKeyChange( key, false, new OnKeyChange<StringKey>() {
+			@Override
+			public boolean handleEvent( Meta metaSend, Meta metaRecv, KeyChange<StringKey> event ) {
+				received.add( "deep " + metaSend.getValue( key, null ) );
+				return true;
+			}
+		} );
+		bionic.putNodeValue( root, key, "a" );
+		VirtualNode other = node( null );
+		bionic.putNodeValue( other, key, "b" );
+		received.clear();
+
+		root.addChild( top );
+		assertEquals( Arrays.asList( "deep a" ), received );
+
+		root.removeChild( top );
+		other.addChild( top );
+		assertEquals( Arrays.asList( "deep a", "deep b" ), received );
+
+		bionic.destroyNode( other );
+		assertNull( deep.meta );
+	}
+
+}